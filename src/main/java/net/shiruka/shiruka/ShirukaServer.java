@@ -60,6 +60,7 @@ import net.shiruka.shiruka.base.PlayerList;
 import net.shiruka.shiruka.command.SimpleCommandManager;
 import net.shiruka.shiruka.command.SimpleConsoleCommandSender;
 import net.shiruka.shiruka.concurrent.ShirukaTick;
+import net.shiruka.shiruka.concurrent.TickWatchdog;
 import net.shiruka.shiruka.config.ServerConfig;
 import net.shiruka.shiruka.config.UserCacheConfig;
 import net.shiruka.shiruka.config.WhitelistConfig;
@@ -68,13 +69,19 @@ import net.shiruka.shiruka.entities.ShirukaPlayer;
 import net.shiruka.shiruka.event.SimpleEventManager;
 import net.shiruka.shiruka.language.SimpleLanguageManager;
 import net.shiruka.shiruka.misc.JiraExceptionCatcher;
+import net.shiruka.shiruka.network.CompressionWorkers;
+import net.shiruka.shiruka.network.ConnectionWorkers;
+import net.shiruka.shiruka.network.LoginAdmission;
+import net.shiruka.shiruka.network.LoginWorkers;
+import net.shiruka.shiruka.network.NetworkStats;
+import net.shiruka.shiruka.network.PackTransferScheduler;
 import net.shiruka.shiruka.network.Protocol;
 import net.shiruka.shiruka.pack.SimplePackManager;
 import net.shiruka.shiruka.permission.SimplePermissionManager;
 import net.shiruka.shiruka.plugin.InternalShirukaPlugin;
 import net.shiruka.shiruka.scheduler.SimpleScheduler;
 import net.shiruka.shiruka.text.TranslatedTexts;
-import net.shiruka.shiruka.util.SystemUtils;
+import net.shiruka.shiruka.timings.Timings;
 import net.shiruka.shiruka.world.SimpleWorldManager;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -149,11 +156,26 @@ public final class ShirukaServer implements Server, RakNetServerListener {
   @NotNull
   private final SimpleLanguageManager languageManager;
 
+  /**
+   * the login admission.
+   */
+  private final LoginAdmission loginAdmission = new LoginAdmission();
+
+  /**
+   * the network stats of all connections.
+   */
+  private final NetworkStats networkStats = NetworkStats.server();
+
   /**
    * the pack manager.
    */
   private final SimplePackManager packManager = new SimplePackManager();
 
+  /**
+   * the pack transfer scheduler.
+   */
+  private final PackTransferScheduler packTransferScheduler = new PackTransferScheduler();
+
   /**
    * the permission manager.
    */
@@ -237,6 +259,12 @@ public final class ShirukaServer implements Server, RakNetServerListener {
   @Nullable
   private volatile Thread shutdownThread;
 
+  /**
+   * the watchdog.
+   */
+  @Nullable
+  private volatile TickWatchdog watchdog;
+
   /**
    * ctor.
    *
@@ -340,7 +368,11 @@ public final class ShirukaServer implements Server, RakNetServerListener {
   public void startServer() {
     this.registerImplementations();
     this.getLogger().info(TranslatedTexts.SERVER_STARTING);
+    Timings.setEnabled(ServerConfig.TIMINGS_ENABLED.getValue().orElse(true));
     this.packManager.reloadPacks();
+    if (ServerConfig.PACK_AUTO_RELOAD.getValue().orElse(false)) {
+      this.packManager.startWatching();
+    }
     this.running.set(true);
     this.getLogger().info(TranslatedTexts.LOADING_PLUGINS);
     // @todo #1:60m Load plugins here.
@@ -356,10 +388,11 @@ public final class ShirukaServer implements Server, RakNetServerListener {
       // @todo #1:5m Add language support for console's uncaught exception handler.
       .error("Caught previously unhandled exception :", e));
     consoleThread.start();
-    this.tick.nextTick = SystemUtils.getMonotonicMillis();
+    this.tick.nextTick = System.nanoTime();
     this.scheduler.mainThreadHeartbeat(0);
     final var end = System.currentTimeMillis() - this.startTime;
     this.getLogger().info(TranslatedText.get(ShirukaServer.SERVER_DONE, end));
+    this.watchdog = TickWatchdog.start(this);
     this.tick.run();
     this.stopServer();
   }
@@ -378,6 +411,46 @@ public final class ShirukaServer implements Server, RakNetServerListener {
     this.interfaces.remove(cls);
   }
 
+  /**
+   * obtains the login admission.
+   *
+   * @return login admission.
+   */
+  @NotNull
+  public LoginAdmission getLoginAdmission() {
+    return this.loginAdmission;
+  }
+
+  /**
+   * obtains the network stats of all connections.
+   *
+   * @return network stats.
+   */
+  @NotNull
+  public NetworkStats getNetworkStats() {
+    return this.networkStats;
+  }
+
+  /**
+   * obtains the pack manager.
+   *
+   * @return pack manager.
+   */
+  @NotNull
+  public SimplePackManager getPackManager() {
+    return this.packManager;
+  }
+
+  /**
+   * obtains the pack transfer scheduler.
+   *
+   * @return pack transfer scheduler.
+   */
+  @NotNull
+  public PackTransferScheduler getPackTransferScheduler() {
+    return this.packTransferScheduler;
+  }
+
   /**
    * obtains the players directory.
    *
@@ -450,14 +523,13 @@ public final class ShirukaServer implements Server, RakNetServerListener {
   @Override
   public void handleMessage(final RakNetServer server, final RakNetClientPeer peer, final RakNetPacket packet,
                             final int channel) {
-    final var address = peer.getAddress();
-    if (!this.tick.connectedPlayers.containsKey(address)) {
+    final var connection = this.tick.connectedPlayers.get(peer.getAddress());
+    if (connection == null) {
       return;
     }
-    final var handler = this.tick.connectedPlayers.get(address).getPacketHandler();
     if (packet.getId() == 0xfe) {
-      packet.buffer().markReaderIndex();
-      Protocol.deserialize(handler, packet.buffer());
+      Protocol.deserialize(packet.buffer(), connection.getPacketHandler(), connection.getNetworkStats(),
+        connection::receivePacket);
     }
   }
 
@@ -545,6 +617,10 @@ public final class ShirukaServer implements Server, RakNetServerListener {
       this.hasStopped = true;
     }
     this.shutdownThread = Thread.currentThread();
+    final var watchdog = this.watchdog;
+    if (watchdog != null) {
+      watchdog.close();
+    }
     if (!this.isMainThread()) {
       this.getLogger().info("§eStopping main thread.");
       while (this.serverThread.isAlive()) {
@@ -557,7 +633,14 @@ public final class ShirukaServer implements Server, RakNetServerListener {
     }
     this.getLogger().info("§eStopping the server.");
     // @todo #1:15m disable plugins here and wait for async tasks shutdown.
+    LoginWorkers.shutdown();
+    ConnectionWorkers.shutdown();
+    CompressionWorkers.shutdown();
     this.socket.shutdown();
+    try {
+      this.packManager.close();
+    } catch (final IOException ignored) {
+    }
     // @todo #1:15m save all players data here.
     this.getLogger().info("§eSaving worlds.");
     // @todo #1:15m save and close all worlds here.
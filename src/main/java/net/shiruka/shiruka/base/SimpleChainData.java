@@ -29,14 +29,22 @@ import com.eclipsesource.json.Json;
 import com.eclipsesource.json.JsonObject;
 import com.eclipsesource.json.JsonValue;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSObject;
-import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import java.nio.charset.StandardCharsets;
 import java.security.KeyFactory;
 import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
 import java.text.ParseException;
@@ -44,6 +52,8 @@ import java.util.Base64;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import net.shiruka.api.events.ChainDataEvent;
 import net.shiruka.api.geometry.AnimatedTextureType;
@@ -69,6 +79,16 @@ public final class SimpleChainData implements ChainDataEvent.ChainData {
    */
   private static final String CHAIN = "chain";
 
+  /**
+   * the decoded and verified identities by the SHA-256 hashes of their chain data.
+   * <p>
+   * a client that reconnects sends the same chain data, so its signatures are not verified again.
+   */
+  private static final Cache<HashCode, ChainIdentity> CHAINS = CacheBuilder.newBuilder()
+    .maximumSize(4096L)
+    .expireAfterWrite(10L, TimeUnit.MINUTES)
+    .build();
+
   /**
    * the key of identity public key.
    */
@@ -89,6 +109,35 @@ public final class SimpleChainData implements ChainDataEvent.ChainData {
    */
   private static final PublicKey MOJANG_PUBLIC_KEY;
 
+  /**
+   * the verifier of the Mojang public key.
+   */
+  private static final JWSVerifier MOJANG_VERIFIER;
+
+  /**
+   * the keys of the skin token that make up the skin.
+   */
+  private static final List<String> SKIN_KEYS = List.of("SkinId", "CapeId", "SkinData", "SkinImageWidth",
+    "SkinImageHeight", "CapeData", "CapeImageWidth", "CapeImageHeight", "PremiumSkin", "PersonaSkin",
+    "CapeOnClassicSkin", "SkinResourcePatch", "SkinGeometryData", "SkinAnimationData", "AnimatedImageData");
+
+  /**
+   * the decoded skins by the SHA-256 hashes of their encoded values.
+   * <p>
+   * the players that use the same skin share a single instance, and the skins are collected when no player uses them.
+   */
+  private static final Cache<HashCode, Skin> SKINS = CacheBuilder.newBuilder()
+    .weakValues()
+    .build();
+
+  /**
+   * the verifiers by their public keys as {@link Base64} format.
+   */
+  private static final Cache<String, JWSVerifier> VERIFIERS = CacheBuilder.newBuilder()
+    .maximumSize(4096L)
+    .expireAfterAccess(10L, TimeUnit.MINUTES)
+    .build();
+
   /**
    * the chain data itself.
    */
@@ -162,11 +211,17 @@ public final class SimpleChainData implements ChainDataEvent.ChainData {
   private String serverAddress;
 
   /**
-   * the skin.
+   * the skin, which is decoded on the first access.
    */
   @Nullable
   private Skin skin;
 
+  /**
+   * the skin token, which is released after the skin is decoded.
+   */
+  @Nullable
+  private JsonObject skinToken;
+
   /**
    * the ui profile.
    */
@@ -198,7 +253,8 @@ public final class SimpleChainData implements ChainDataEvent.ChainData {
   static {
     try {
       MOJANG_PUBLIC_KEY = SimpleChainData.generateKey(SimpleChainData.MOJANG_PUBLIC_KEY_BASE64);
-    } catch (final InvalidKeySpecException | NoSuchAlgorithmException e) {
+      MOJANG_VERIFIER = new ECDSAVerifier((ECPublicKey) SimpleChainData.MOJANG_PUBLIC_KEY);
+    } catch (final InvalidKeySpecException | NoSuchAlgorithmException | JOSEException e) {
       throw new AssertionError(e);
     }
   }
@@ -229,6 +285,64 @@ public final class SimpleChainData implements ChainDataEvent.ChainData {
     return data;
   }
 
+  /**
+   * decodes and verifies the given chain data.
+   *
+   * @param chainData the chain data to decode.
+   *
+   * @return decoded identity.
+   */
+  @NotNull
+  private static ChainIdentity decodeIdentity(@NotNull final String chainData) {
+    final JsonObject parsed;
+    try {
+      parsed = Json.parse(chainData).asObject();
+    } catch (final Exception e) {
+      throw new IllegalArgumentException("Invalid JSON", e);
+    }
+    final var identity = new ChainIdentity();
+    if (parsed.isEmpty() || !parsed.names().contains(SimpleChainData.CHAIN) ||
+      parsed.get(SimpleChainData.CHAIN).asArray().isEmpty()) {
+      return identity;
+    }
+    final var chains = parsed.get(SimpleChainData.CHAIN).asArray().values().stream()
+      .map(JsonValue::asString)
+      .collect(Collectors.toList());
+    try {
+      identity.xboxAuthed = SimpleChainData.verifyChain(chains);
+    } catch (final Exception e) {
+      identity.xboxAuthed = false;
+    }
+    chains.stream()
+      .map(SimpleChainData::decodeToken)
+      .forEach(chainMap -> {
+        final var keys = chainMap.names();
+        if (!keys.contains("extraData") &&
+          keys.contains(SimpleChainData.IDENTITY_PUBLIC_KEY)) {
+          identity.publicKey = chainMap.get(SimpleChainData.IDENTITY_PUBLIC_KEY).asString();
+          return;
+        }
+        final var extra = chainMap.get("extraData").asObject();
+        final var extrasKeys = extra.names();
+        if (extrasKeys.contains("displayName")) {
+          identity.username = extra.get("displayName").asString();
+        }
+        if (extrasKeys.contains("identity")) {
+          identity.uniqueId = UUID.fromString(extra.get("identity").asString());
+        }
+        if (extrasKeys.contains("XUID")) {
+          identity.xboxUniqueId = extra.get("XUID").asString();
+        }
+        if (keys.contains(SimpleChainData.IDENTITY_PUBLIC_KEY)) {
+          identity.publicKey = chainMap.get(SimpleChainData.IDENTITY_PUBLIC_KEY).asString();
+        }
+      });
+    if (!identity.xboxAuthed) {
+      identity.xboxUniqueId = null;
+    }
+    return identity;
+  }
+
   /**
    * decodes the token.
    *
@@ -373,18 +487,41 @@ public final class SimpleChainData implements ChainDataEvent.ChainData {
   }
 
   /**
-   * verifies the given key and object.
+   * obtains the verifier of the given public key, creates and caches it if it's absent.
    *
-   * @param key the key to verify.
-   * @param object the object to verify.
+   * @param base64 the public key as {@link Base64} format.
    *
-   * @return {@code true} if the key and object verified.
+   * @return the shared verifier.
    *
-   * @throws JOSEException if something went wrong when verifying the given key and object.
+   * @throws JOSEException if the public key is not a valid EC public key.
    */
-  private static boolean verify(@NotNull final PublicKey key, @NotNull final JWSObject object) throws JOSEException {
-    final var verifier = new DefaultJWSVerifierFactory().createJWSVerifier(object.getHeader(), key);
-    return object.verify(verifier);
+  @NotNull
+  private static JWSVerifier getVerifier(@NotNull final String base64) throws JOSEException {
+    try {
+      return SimpleChainData.VERIFIERS.get(base64, () ->
+        new ECDSAVerifier((ECPublicKey) SimpleChainData.generateKey(base64)));
+    } catch (final ExecutionException | UncheckedExecutionException e) {
+      throw new JOSEException("Invalid public key in chain.", e.getCause());
+    }
+  }
+
+  /**
+   * computes the hash of the values that make up the skin in the given skin token, without decoding them.
+   *
+   * @param json the json to compute.
+   *
+   * @return skin hash.
+   */
+  @NotNull
+  private static HashCode hashSkin(@NotNull final JsonObject json) {
+    final var hasher = Hashing.sha256().newHasher();
+    for (final var key : SimpleChainData.SKIN_KEYS) {
+      final var value = json.get(key);
+      final var encoded = value == null ? "" : value.isString() ? value.asString() : value.toString();
+      hasher.putInt(encoded.length());
+      hasher.putUnencodedChars(encoded);
+    }
+    return hasher.hash();
   }
 
   /**
@@ -394,22 +531,21 @@ public final class SimpleChainData implements ChainDataEvent.ChainData {
    *
    * @return {@code true} if the given chains correct.
    */
-  private static boolean verifyChain(@NotNull final List<String> chains) throws ParseException, JOSEException,
-    NoSuchAlgorithmException, InvalidKeySpecException {
-    PublicKey lastKey = null;
+  private static boolean verifyChain(@NotNull final List<String> chains) throws ParseException, JOSEException {
+    JWSVerifier lastVerifier = null;
     var mojangKeyVerified = false;
     for (final var chain : chains) {
       final var jws = JWSObject.parse(chain);
       if (!mojangKeyVerified) {
-        mojangKeyVerified = SimpleChainData.verify(SimpleChainData.MOJANG_PUBLIC_KEY, jws);
+        mojangKeyVerified = jws.verify(SimpleChainData.MOJANG_VERIFIER);
       }
-      if (lastKey != null && !SimpleChainData.verify(lastKey, jws)) {
+      if (lastVerifier != null && !jws.verify(lastVerifier)) {
         throw new JOSEException("Unable to verify key in chain.");
       }
       final var payload = jws.getPayload().toJSONObject();
       final var base64key = payload.get(SimpleChainData.IDENTITY_PUBLIC_KEY);
       Preconditions.checkState(base64key instanceof String, "No key found");
-      lastKey = SimpleChainData.generateKey((String) base64key);
+      lastVerifier = SimpleChainData.getVerifier((String) base64key);
     }
     return mojangKeyVerified;
   }
@@ -477,7 +613,17 @@ public final class SimpleChainData implements ChainDataEvent.ChainData {
 
   @NotNull
   @Override
-  public Skin getSkin() {
+  public synchronized Skin getSkin() {
+    if (this.skin == null && this.skinToken != null) {
+      final var json = this.skinToken;
+      try {
+        this.skin = SimpleChainData.SKINS.get(SimpleChainData.hashSkin(json), () -> SimpleChainData.getSkin(json));
+      } catch (final ExecutionException | UncheckedExecutionException e) {
+        Throwables.throwIfUnchecked(e.getCause());
+        throw new IllegalArgumentException("Invalid skin data", e.getCause());
+      }
+      this.skinToken = null;
+    }
     return SimpleChainData.get(this.skin);
   }
 
@@ -510,58 +656,26 @@ public final class SimpleChainData implements ChainDataEvent.ChainData {
   }
 
   /**
-   * decodes the chain data.
+   * decodes the chain data, or obtains it from the {@link #CHAINS} if the same chain data is verified recently.
    */
   private void decodeChainData() {
-    final JsonObject parsed;
-    try {
-      parsed = Json.parse(this.chainData).asObject();
-    } catch (final Exception e) {
-      throw new IllegalArgumentException("Invalid JSON", e);
-    }
-    if (parsed.isEmpty() || !parsed.names().contains(SimpleChainData.CHAIN) ||
-      parsed.get(SimpleChainData.CHAIN).asArray().isEmpty()) {
-      return;
-    }
-    final var chains = parsed.get(SimpleChainData.CHAIN).asArray().values().stream()
-      .map(JsonValue::asString)
-      .collect(Collectors.toList());
+    final var key = Hashing.sha256().hashString(this.chainData, StandardCharsets.UTF_8);
+    final ChainIdentity identity;
     try {
-      this.xboxAuthed = SimpleChainData.verifyChain(chains);
-    } catch (final Exception e) {
-      this.xboxAuthed = false;
-    }
-    chains.stream()
-      .map(SimpleChainData::decodeToken)
-      .forEach(chainMap -> {
-        final var keys = chainMap.names();
-        if (!keys.contains("extraData") &&
-          keys.contains(SimpleChainData.IDENTITY_PUBLIC_KEY)) {
-          this.publicKey = chainMap.get(SimpleChainData.IDENTITY_PUBLIC_KEY).asString();
-          return;
-        }
-        final var extra = chainMap.get("extraData").asObject();
-        final var extrasKeys = extra.names();
-        if (extrasKeys.contains("displayName")) {
-          this.username = extra.get("displayName").asString();
-        }
-        if (extrasKeys.contains("identity")) {
-          this.uniqueId = UUID.fromString(extra.get("identity").asString());
-        }
-        if (extrasKeys.contains("XUID")) {
-          this.xboxUniqueId = extra.get("XUID").asString();
-        }
-        if (keys.contains(SimpleChainData.IDENTITY_PUBLIC_KEY)) {
-          this.publicKey = chainMap.get(SimpleChainData.IDENTITY_PUBLIC_KEY).asString();
-        }
-      });
-    if (!this.xboxAuthed) {
-      this.xboxUniqueId = null;
+      identity = SimpleChainData.CHAINS.get(key, () -> SimpleChainData.decodeIdentity(this.chainData));
+    } catch (final ExecutionException | UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalArgumentException("Invalid chain data", e.getCause());
     }
+    this.publicKey = identity.publicKey;
+    this.uniqueId = identity.uniqueId;
+    this.username = identity.username;
+    this.xboxAuthed = identity.xboxAuthed;
+    this.xboxUniqueId = identity.xboxUniqueId;
   }
 
   /**
-   * decodes and sets the skin data to {@link this#skin}.
+   * decodes the skin data, and keeps the skin token to decode {@link this#skin} on the first access.
    */
   private void decodeSkinData() {
     final var skinToken = SimpleChainData.decodeToken(this.skinData);
@@ -598,7 +712,7 @@ public final class SimpleChainData implements ChainDataEvent.ChainData {
     if (skinToken.names().contains("UIProfile")) {
       this.uiProfile = skinToken.get("UIProfile").asInt();
     }
-    this.skin = SimpleChainData.getSkin(skinToken);
+    this.skinToken = skinToken;
   }
 
   /**
@@ -608,4 +722,41 @@ public final class SimpleChainData implements ChainDataEvent.ChainData {
     this.decodeChainData();
     this.decodeSkinData();
   }
+
+  /**
+   * a class that represents the identities which are decoded and verified from the chain data.
+   * <p>
+   * the instances are shared by the logins that send the same chain data, so they are not modified after decoding.
+   */
+  private static final class ChainIdentity {
+
+    /**
+     * the public key.
+     */
+    @Nullable
+    private String publicKey;
+
+    /**
+     * the client unique id.
+     */
+    @Nullable
+    private UUID uniqueId;
+
+    /**
+     * the username.
+     */
+    @Nullable
+    private String username;
+
+    /**
+     * the xbox authed.
+     */
+    private boolean xboxAuthed;
+
+    /**
+     * the xbox id.
+     */
+    @Nullable
+    private String xboxUniqueId;
+  }
 }
@@ -36,7 +36,10 @@ import net.shiruka.api.command.sender.CommandSender;
 import net.shiruka.api.plugin.Plugin;
 import net.shiruka.api.text.TranslatedText;
 import net.shiruka.shiruka.command.commands.HelpCommand;
+import net.shiruka.shiruka.command.commands.NetstatsCommand;
+import net.shiruka.shiruka.command.commands.PacksCommand;
 import net.shiruka.shiruka.command.commands.StopCommand;
+import net.shiruka.shiruka.command.commands.TimingsCommand;
 import net.shiruka.shiruka.command.commands.TpsCommand;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -66,6 +69,9 @@ public final class SimpleCommandManager implements CommandManager {
     DISPATCHER = new CommandDispatcher();
     StopCommand.init();
     TpsCommand.init();
+    NetstatsCommand.init();
+    PacksCommand.init();
+    TimingsCommand.init();
     HelpCommand.init();
   }
 
@@ -0,0 +1,214 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.command.commands;
+
+import static net.shiruka.api.command.CommandResult.of;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+import net.shiruka.api.Shiruka;
+import net.shiruka.api.command.builder.LiteralBuilder;
+import net.shiruka.api.command.context.CommandContext;
+import net.shiruka.shiruka.ShirukaServer;
+import net.shiruka.shiruka.network.LoginWorkers;
+import net.shiruka.shiruka.network.NetworkStats;
+import net.shiruka.shiruka.network.PacketRegistry;
+import net.shiruka.shiruka.network.PlayerConnection;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents netstats command.
+ */
+public final class NetstatsCommand extends CommandHelper {
+
+  /**
+   * the message key of the connection lines.
+   */
+  private static final String CONNECTION = "shiruka.command.netstats_command.connection";
+
+  /**
+   * the message key of the login line.
+   */
+  private static final String LOGIN = "shiruka.command.netstats_command.login";
+
+  /**
+   * the message key of the packet lines.
+   */
+  private static final String PACKET = "shiruka.command.netstats_command.packet";
+
+  /**
+   * the message key of the summary.
+   */
+  private static final String SUMMARY = "shiruka.command.netstats_command.summary";
+
+  /**
+   * the top entry count to show.
+   */
+  private static final int TOP = 5;
+
+  /**
+   * the message key of the top connections header.
+   */
+  private static final String TOP_CONNECTIONS = "shiruka.command.netstats_command.top_connections";
+
+  /**
+   * the message key of the top packets header.
+   */
+  private static final String TOP_PACKETS = "shiruka.command.netstats_command.top_packets";
+
+  /**
+   * the message key of the traffic lines.
+   */
+  private static final String TRAFFIC = "shiruka.command.netstats_command.traffic";
+
+  /**
+   * ctor.
+   */
+  private NetstatsCommand() {
+    super("netstats", "Shows the network statistics of the server and the most expensive connections.",
+      "shiruka.command.netstats");
+  }
+
+  /**
+   * registers the netstats command.
+   */
+  public static void init() {
+    new NetstatsCommand().register();
+  }
+
+  /**
+   * formats the given {@code bytes} as a human readable size.
+   *
+   * @param bytes the bytes to format.
+   *
+   * @return formatted bytes.
+   */
+  @NotNull
+  private static String formatBytes(final long bytes) {
+    if (bytes < 1024L) {
+      return bytes + "B";
+    }
+    if (bytes < 1024L * 1024L) {
+      return String.format("%.1fKiB", bytes / 1024.0d);
+    }
+    return String.format("%.1fMiB", bytes / (1024.0d * 1024.0d));
+  }
+
+  /**
+   * formats the given {@code nanos} as milliseconds with two decimals.
+   *
+   * @param nanos the nanos to format.
+   *
+   * @return formatted milliseconds.
+   */
+  @NotNull
+  private static String formatMillis(final long nanos) {
+    return String.format("%.2f", nanos / 1_000_000.0d);
+  }
+
+  /**
+   * formats the given {@code ratio} with two decimals.
+   *
+   * @param ratio the ratio to format.
+   *
+   * @return formatted ratio.
+   */
+  @NotNull
+  private static String formatRatio(final double ratio) {
+    return String.format("%.2f", ratio);
+  }
+
+  /**
+   * sends the connections that send the most bytes.
+   *
+   * @param context the context to send.
+   * @param server the server to send.
+   */
+  private static void sendConnections(@NotNull final CommandContext context, @NotNull final ShirukaServer server) {
+    CommandHelper.sendTranslated(context, NetstatsCommand.TOP_CONNECTIONS);
+    server.getTick().connectedPlayers.values().stream()
+      .sorted(Comparator.comparingLong((PlayerConnection connection) ->
+        connection.getNetworkStats().getCompressedBytesOut()).reversed())
+      .limit(NetstatsCommand.TOP)
+      .forEach(connection -> {
+        final var stats = connection.getNetworkStats();
+        final var player = connection.getPlayer();
+        final var name = player == null
+          ? connection.getConnection().getAddress().toString()
+          : player.getName().asString();
+        CommandHelper.sendTranslated(context, NetstatsCommand.CONNECTION, name,
+          NetstatsCommand.formatBytes(stats.getCompressedBytesOut()),
+          NetstatsCommand.formatBytes(stats.getCompressedBytesIn()),
+          NetstatsCommand.formatRatio(stats.getCompressionRatio()),
+          stats.getLastQueueDepth(), connection.getIncomingQueueDepth());
+      });
+  }
+
+  /**
+   * sends the packet ids that the most bytes sent.
+   *
+   * @param context the context to send.
+   * @param stats the stats to send.
+   */
+  private static void sendPackets(@NotNull final CommandContext context, @NotNull final NetworkStats stats) {
+    CommandHelper.sendTranslated(context, NetstatsCommand.TOP_PACKETS);
+    IntStream.range(0, PacketRegistry.PACKET_ID_COUNT)
+      .filter(packetId -> stats.getPacketCountOut(packetId) > 0L || stats.getPacketCountIn(packetId) > 0L)
+      .boxed()
+      .sorted(Comparator.comparingLong(stats::getPacketBytesOut).reversed())
+      .limit(NetstatsCommand.TOP)
+      .forEach(packetId -> CommandHelper.sendTranslated(context, NetstatsCommand.PACKET, packetId,
+        stats.getPacketCountOut(packetId), NetstatsCommand.formatBytes(stats.getPacketBytesOut(packetId)),
+        stats.getPacketCountIn(packetId), NetstatsCommand.formatBytes(stats.getPacketBytesIn(packetId))));
+  }
+
+  /**
+   * registers the command.
+   */
+  @NotNull
+  @Override
+  protected LiteralBuilder build() {
+    return super.build()
+      .executes(context -> {
+        final var server = (ShirukaServer) Shiruka.getServer();
+        final var stats = server.getNetworkStats();
+        CommandHelper.sendTranslated(context, NetstatsCommand.SUMMARY,
+          server.getTick().connectedPlayers.size(), NetstatsCommand.formatRatio(stats.getCompressionRatio()));
+        CommandHelper.sendTranslated(context, NetstatsCommand.TRAFFIC, "Out", stats.getPacketsOut(),
+          stats.getBatchesOut(), NetstatsCommand.formatBytes(stats.getCompressedBytesOut()),
+          NetstatsCommand.formatBytes(stats.getRawBytesOut()), stats.getEncodeNanos() / 1_000_000L);
+        CommandHelper.sendTranslated(context, NetstatsCommand.TRAFFIC, "In", stats.getPacketsIn(),
+          stats.getBatchesIn(), NetstatsCommand.formatBytes(stats.getCompressedBytesIn()),
+          NetstatsCommand.formatBytes(stats.getRawBytesIn()), stats.getDecodeNanos() / 1_000_000L);
+        CommandHelper.sendTranslated(context, NetstatsCommand.LOGIN, LoginWorkers.getVerifiedLogins(),
+          LoginWorkers.getFailedLogins(), LoginWorkers.getRejectedLogins(), LoginWorkers.getQueuedLogins(),
+          NetstatsCommand.formatMillis(LoginWorkers.getAverageQueueWaitNanos()),
+          NetstatsCommand.formatMillis(LoginWorkers.getAverageVerifyNanos()));
+        NetstatsCommand.sendPackets(context, stats);
+        NetstatsCommand.sendConnections(context, server);
+        return of();
+      });
+  }
+}
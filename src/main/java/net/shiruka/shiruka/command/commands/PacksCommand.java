@@ -0,0 +1,122 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.command.commands;
+
+import static net.shiruka.api.command.CommandResult.of;
+import static net.shiruka.api.command.Commands.literal;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletionException;
+import net.shiruka.api.Shiruka;
+import net.shiruka.api.command.builder.LiteralBuilder;
+import net.shiruka.api.command.context.CommandContext;
+import net.shiruka.shiruka.ShirukaServer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents packs command.
+ */
+public final class PacksCommand extends CommandHelper {
+
+  /**
+   * the message key of the failed reloads.
+   */
+  private static final String FAILED = "shiruka.command.packs_command.failed";
+
+  /**
+   * the message key of the pack list.
+   */
+  private static final String LIST = "shiruka.command.packs_command.list";
+
+  /**
+   * the message key of the completed reloads.
+   */
+  private static final String RELOADED = "shiruka.command.packs_command.reloaded";
+
+  /**
+   * the message key of the started reloads.
+   */
+  private static final String RELOADING = "shiruka.command.packs_command.reloading";
+
+  /**
+   * the reload sub command.
+   */
+  private static final String RELOAD_SUB_COMMAND = "reload";
+
+  /**
+   * ctor.
+   */
+  private PacksCommand() {
+    super("packs", "Lists the resource packs, or reloads them without restarting the server.",
+      "shiruka.command.packs");
+  }
+
+  /**
+   * registers the packs command.
+   */
+  public static void init() {
+    new PacksCommand().register();
+  }
+
+  /**
+   * reloads the packs and sends the result on the server thread.
+   *
+   * @param context the context to send.
+   */
+  private static void reload(@NotNull final CommandContext context) {
+    final var start = System.currentTimeMillis();
+    CommandHelper.sendTranslated(context, PacksCommand.RELOADING);
+    final var server = (ShirukaServer) Shiruka.getServer();
+    server.getPackManager().reload()
+      .whenComplete((count, throwable) -> Shiruka.getScheduler().schedule(ShirukaServer.INTERNAL_PLUGIN, () -> {
+        if (throwable == null) {
+          CommandHelper.sendTranslated(context, PacksCommand.RELOADED, count, System.currentTimeMillis() - start);
+          return;
+        }
+        final var cause = throwable instanceof CompletionException && throwable.getCause() != null
+          ? throwable.getCause()
+          : throwable;
+        CommandHelper.sendTranslated(context, PacksCommand.FAILED, String.valueOf(cause.getMessage()));
+      }));
+  }
+
+  @NotNull
+  @Override
+  protected LiteralBuilder build() {
+    return super.build()
+      .executes(context -> {
+        final var packs = Shiruka.getPackManager().getPacks().values();
+        final var joiner = new StringJoiner(", ");
+        packs.forEach(pack -> joiner.add(pack.getManifest().getHeader().getName() + ":" + pack.getVersion()));
+        CommandHelper.sendTranslated(context, PacksCommand.LIST, packs.size(), joiner.toString());
+        return of();
+      })
+      .then(literal(PacksCommand.RELOAD_SUB_COMMAND)
+        .executes(context -> {
+          PacksCommand.reload(context);
+          return of();
+        }));
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.command.commands;
+
+import static net.shiruka.api.command.CommandResult.of;
+import static net.shiruka.api.command.Commands.literal;
+import java.util.concurrent.CompletionException;
+import net.shiruka.api.Shiruka;
+import net.shiruka.api.command.builder.LiteralBuilder;
+import net.shiruka.api.command.context.CommandContext;
+import net.shiruka.shiruka.ShirukaServer;
+import net.shiruka.shiruka.timings.Timings;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents timings command.
+ */
+public final class TimingsCommand extends CommandHelper {
+
+  /**
+   * the message key of the disabled timings.
+   */
+  private static final String DISABLED = "shiruka.command.timings_command.disabled";
+
+  /**
+   * the message key of the enabled timings.
+   */
+  private static final String ENABLED = "shiruka.command.timings_command.enabled";
+
+  /**
+   * the message key of the failed reports.
+   */
+  private static final String FAILED = "shiruka.command.timings_command.failed";
+
+  /**
+   * the off sub command.
+   */
+  private static final String OFF_SUB_COMMAND = "off";
+
+  /**
+   * the on sub command.
+   */
+  private static final String ON_SUB_COMMAND = "on";
+
+  /**
+   * the message key of the written reports.
+   */
+  private static final String REPORTED = "shiruka.command.timings_command.reported";
+
+  /**
+   * the report sub command.
+   */
+  private static final String REPORT_SUB_COMMAND = "report";
+
+  /**
+   * the message key of the cleared timings.
+   */
+  private static final String RESET = "shiruka.command.timings_command.reset";
+
+  /**
+   * the reset sub command.
+   */
+  private static final String RESET_SUB_COMMAND = "reset";
+
+  /**
+   * ctor.
+   */
+  private TimingsCommand() {
+    super("timings", "Exports the tick phase, task and event timings as a json report.",
+      "shiruka.command.timings");
+  }
+
+  /**
+   * registers the timings command.
+   */
+  public static void init() {
+    new TimingsCommand().register();
+  }
+
+  /**
+   * writes the report and sends the result on the server thread.
+   *
+   * @param context the context to send.
+   */
+  private static void report(@NotNull final CommandContext context) {
+    Timings.writeReport()
+      .whenComplete((path, throwable) -> Shiruka.getScheduler().schedule(ShirukaServer.INTERNAL_PLUGIN, () -> {
+        if (throwable == null) {
+          CommandHelper.sendTranslated(context, TimingsCommand.REPORTED, path.toString());
+          return;
+        }
+        final var cause = throwable instanceof CompletionException && throwable.getCause() != null
+          ? throwable.getCause()
+          : throwable;
+        CommandHelper.sendTranslated(context, TimingsCommand.FAILED, String.valueOf(cause.getMessage()));
+      }));
+  }
+
+  @NotNull
+  @Override
+  protected LiteralBuilder build() {
+    return super.build()
+      .executes(context -> {
+        TimingsCommand.report(context);
+        return of();
+      })
+      .then(literal(TimingsCommand.REPORT_SUB_COMMAND)
+        .executes(context -> {
+          TimingsCommand.report(context);
+          return of();
+        }))
+      .then(literal(TimingsCommand.RESET_SUB_COMMAND)
+        .executes(context -> {
+          Timings.reset();
+          CommandHelper.sendTranslated(context, TimingsCommand.RESET);
+          return of();
+        }))
+      .then(literal(TimingsCommand.ON_SUB_COMMAND)
+        .executes(context -> {
+          Timings.setEnabled(true);
+          CommandHelper.sendTranslated(context, TimingsCommand.ENABLED);
+          return of();
+        }))
+      .then(literal(TimingsCommand.OFF_SUB_COMMAND)
+        .executes(context -> {
+          Timings.setEnabled(false);
+          CommandHelper.sendTranslated(context, TimingsCommand.DISABLED);
+          return of();
+        }));
+  }
+}
@@ -27,9 +27,14 @@ package net.shiruka.shiruka.command.commands;
 
 import static net.shiruka.api.command.CommandResult.of;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import net.shiruka.api.Shiruka;
 import net.shiruka.api.command.builder.LiteralBuilder;
+import net.shiruka.api.command.context.CommandContext;
 import net.shiruka.api.text.ChatColor;
+import net.shiruka.shiruka.ShirukaServer;
 import net.shiruka.shiruka.concurrent.ShirukaTick;
+import net.shiruka.shiruka.util.TickTimes;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -37,11 +42,31 @@ import org.jetbrains.annotations.NotNull;
  */
 public final class TpsCommand extends CommandHelper {
 
+  /**
+   * the jitter message key from the Shiru ka's language properties file.
+   */
+  private static final String JITTER = "shiruka.command.tps_command.show_jitter";
+
   /**
    * the message key from the Shiru ka's language properties file.
    */
   private static final String MESSAGE = "shiruka.command.tps_command.show_tps";
 
+  /**
+   * the mspt message key from the Shiru ka's language properties file.
+   */
+  private static final String MSPT = "shiruka.command.tps_command.show_mspt";
+
+  /**
+   * the recent mspt message key from the Shiru ka's language properties file.
+   */
+  private static final String RECENT_MSPT = "shiruka.command.tps_command.show_recent_mspt";
+
+  /**
+   * the windows of the mspt statistics.
+   */
+  private static final String[] WINDOWS = {"1m", "5m", "15m"};
+
   /**
    * ctor.
    */
@@ -57,6 +82,26 @@ public final class TpsCommand extends CommandHelper {
     new TpsCommand().register();
   }
 
+  /**
+   * formats the given milliseconds per tick {@code value} with a color which depends on the tick budget.
+   *
+   * @param value the value to format.
+   *
+   * @return formatted milliseconds per tick.
+   */
+  @NotNull
+  private static String formatMspt(final double value) {
+    final ChatColor color;
+    if (value < 40.0d) {
+      color = ChatColor.GREEN;
+    } else if (value < 50.0d) {
+      color = ChatColor.YELLOW;
+    } else {
+      color = ChatColor.RED;
+    }
+    return color + String.format("%.2f", value) + ChatColor.RESET;
+  }
+
   /**
    * obtains the tps numbers as {@link String} array which has 3 elements.
    *
@@ -80,6 +125,42 @@ public final class TpsCommand extends CommandHelper {
       .toArray(String[]::new);
   }
 
+  /**
+   * takes the tick time snapshots in the background, since sorting them takes too long for the tick thread, and sends
+   * them to the given {@code context} on the server thread.
+   *
+   * @param context the context to send.
+   */
+  private static void sendMspt(@NotNull final CommandContext context) {
+    CompletableFuture.supplyAsync(ShirukaTick::getMspt)
+      .thenAcceptBoth(CompletableFuture.supplyAsync(ShirukaTick::getJitter), (mspt, jitter) ->
+        Shiruka.getScheduler().schedule(ShirukaServer.INTERNAL_PLUGIN, () ->
+          TpsCommand.sendMspt(context, mspt, jitter)));
+  }
+
+  /**
+   * sends the given tick time snapshots to the given {@code context}.
+   *
+   * @param context the context to send.
+   * @param mspt the milliseconds per tick snapshots to send.
+   * @param jitter the jitter snapshot to send.
+   */
+  private static void sendMspt(@NotNull final CommandContext context, @NotNull final TickTimes.Snapshot[] mspt,
+                               @NotNull final TickTimes.Snapshot jitter) {
+    for (var i = 0; i < mspt.length; i++) {
+      final var snapshot = mspt[i];
+      CommandHelper.sendTranslated(context, TpsCommand.MSPT, TpsCommand.WINDOWS[i],
+        TpsCommand.formatMspt(snapshot.getP50()),
+        TpsCommand.formatMspt(snapshot.getP95()),
+        TpsCommand.formatMspt(snapshot.getP99()),
+        TpsCommand.formatMspt(snapshot.getMax()));
+    }
+    CommandHelper.sendTranslated(context, TpsCommand.JITTER,
+      String.format("%.2f", jitter.getP50()),
+      String.format("%.2f", jitter.getP99()),
+      String.format("%.2f", jitter.getMax()));
+  }
+
   /**
    * registers the command.
    */
@@ -90,6 +171,9 @@ public final class TpsCommand extends CommandHelper {
       .executes(context -> {
         final var tpsAvg = TpsCommand.getTps();
         CommandHelper.sendTranslated(context, TpsCommand.MESSAGE, tpsAvg[0], tpsAvg[1], tpsAvg[2]);
+        CommandHelper.sendTranslated(context, TpsCommand.RECENT_MSPT,
+          TpsCommand.formatMspt(ShirukaTick.getRecentMspt()));
+        TpsCommand.sendMspt(context);
         return of();
       });
   }
@@ -28,6 +28,7 @@ package net.shiruka.shiruka.concurrent;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.LockSupport;
 import java.util.function.BooleanSupplier;
 import net.shiruka.api.text.TranslatedText;
@@ -47,6 +48,11 @@ public abstract class AsyncTaskHandler<T extends Runnable> implements Executor {
    */
   private static final Logger LOGGER = LogManager.getLogger();
 
+  /**
+   * the longest park while awaiting a condition that has no deadline.
+   */
+  private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+
   /**
    * the tasks.
    */
@@ -73,11 +79,15 @@ public abstract class AsyncTaskHandler<T extends Runnable> implements Executor {
   }
 
   /**
-   * waits for tasks.
+   * parks the thread until the given {@code deadline} or until {@link #addTask(Runnable)} unparks it.
+   *
+   * @param deadline the {@link System#nanoTime()} to park until, or {@link Long#MAX_VALUE} to park for a short while.
    */
-  protected static void waitForTasks() {
-    Thread.yield();
-    LockSupport.parkNanos("waiting for tasks", 100000L);
+  protected static void waitForTasks(final long deadline) {
+    final var remaining = deadline == Long.MAX_VALUE
+      ? AsyncTaskHandler.MAX_PARK_NANOS
+      : deadline - System.nanoTime();
+    LockSupport.parkNanos("waiting for tasks", remaining > 0L ? remaining : AsyncTaskHandler.MAX_PARK_NANOS);
   }
 
   /**
@@ -96,11 +106,21 @@ public abstract class AsyncTaskHandler<T extends Runnable> implements Executor {
    * @param supplier the supplier to await.
    */
   public final void awaitTasks(@NotNull final BooleanSupplier supplier) {
+    this.awaitTasks(supplier, Long.MAX_VALUE);
+  }
+
+  /**
+   * awaits the tasks, parking the thread between them until the given {@code deadline}.
+   *
+   * @param supplier the supplier to await.
+   * @param deadline the {@link System#nanoTime()} that the supplier turns {@code true} at.
+   */
+  public final void awaitTasks(@NotNull final BooleanSupplier supplier, final long deadline) {
     ++this.blockingCount;
     try {
       while (!supplier.getAsBoolean()) {
         if (!this.executeNext()) {
-          AsyncTaskHandler.waitForTasks();
+          AsyncTaskHandler.waitForTasks(deadline);
         }
       }
     } finally {
@@ -27,22 +27,27 @@ package net.shiruka.shiruka.concurrent;
 
 import com.whirvis.jraknet.peer.RakNetClientPeer;
 import it.unimi.dsi.fastutil.PriorityQueue;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectArrayFIFOQueue;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.net.InetSocketAddress;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import net.shiruka.api.Shiruka;
 import net.shiruka.api.text.TranslatedText;
 import net.shiruka.shiruka.ShirukaServer;
+import net.shiruka.shiruka.config.ServerConfig;
 import net.shiruka.shiruka.misc.JiraExceptionCatcher;
+import net.shiruka.shiruka.network.ConnectionWorkers;
 import net.shiruka.shiruka.network.PlayerConnection;
 import net.shiruka.shiruka.text.TranslatedTexts;
+import net.shiruka.shiruka.timings.TimingHistogram;
+import net.shiruka.shiruka.timings.Timings;
 import net.shiruka.shiruka.util.RollingAverage;
-import net.shiruka.shiruka.util.SystemUtils;
+import net.shiruka.shiruka.util.TickTimes;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
@@ -62,21 +67,61 @@ public final class ShirukaTick extends AsyncTaskHandlerReentrant<TickTask> imple
    */
   public static final int TICK_TIME = 1000000000 / ShirukaTick.TPS;
 
+  /**
+   * the timing of the console commands.
+   */
+  private static final TimingHistogram COMMANDS_TIMING = Timings.of("tick.commands");
+
+  /**
+   * the timing of the connections.
+   */
+  private static final TimingHistogram CONNECTION_TIMING = Timings.of("tick.connections");
+
+  /**
+   * the lateness of the ticks that started on schedule, for 1 minute.
+   */
+  private static final TickTimes JITTER = new TickTimes(ShirukaTick.TPS * 60);
+
   /**
    * the logger.
    */
   private static final Logger LOGGER = LogManager.getLogger();
 
+  /**
+   * the minimum nanos between two overload warnings.
+   */
+  private static final long OVERLOAD_WARN_INTERVAL = TimeUnit.SECONDS.toNanos(30L);
+
+  /**
+   * the timing of the process queue.
+   */
+  private static final TimingHistogram PROCESS_QUEUE_TIMING = Timings.of("tick.process-queue");
+
   /**
    * the sample interval.
    */
   private static final int SAMPLE_INTERVAL = 20;
 
+  /**
+   * the timing of the scheduler heartbeat.
+   */
+  private static final TimingHistogram SCHEDULER_TIMING = Timings.of("tick.scheduler");
+
   /**
    * the server overload.
    */
   private static final String SERVER_OVERLOAD = "shiruka.server.overload";
 
+  /**
+   * the timing of the main thread tasks.
+   */
+  private static final TimingHistogram TASKS_TIMING = Timings.of("tick.tasks");
+
+  /**
+   * the tick times of the last 15 minutes.
+   */
+  private static final TickTimes TICK_TIMES = new TickTimes(ShirukaTick.TPS * 60 * 15);
+
   /**
    * tps for 1 minute.
    */
@@ -93,10 +138,9 @@ public final class ShirukaTick extends AsyncTaskHandlerReentrant<TickTask> imple
   private static final RollingAverage TPS_5 = new RollingAverage(60 * 5);
 
   /**
-   * the tps base.
+   * the timing of the worlds.
    */
-  private static final BigDecimal TPS_BASE = new BigDecimal("1E9")
-    .multiply(new BigDecimal(ShirukaTick.SAMPLE_INTERVAL));
+  private static final TimingHistogram WORLD_TIMING = Timings.of("tick.worlds");
 
   /**
    * the current tick.
@@ -118,6 +162,11 @@ public final class ShirukaTick extends AsyncTaskHandlerReentrant<TickTask> imple
    */
   public final PriorityQueue<RakNetClientPeer> pending = new ObjectArrayFIFOQueue<>();
 
+  /**
+   * the connections to flush after the connection tick.
+   */
+  private final List<PlayerConnection> flushing = new ObjectArrayList<>();
+
   /**
    * the process queue.
    */
@@ -140,9 +189,9 @@ public final class ShirukaTick extends AsyncTaskHandlerReentrant<TickTask> imple
   public long lastPingTime;
 
   /**
-   * the next tick.
+   * the {@link System#nanoTime()} that the next tick is scheduled at.
    */
-  public long nextTick = SystemUtils.getMonotonicMillis();
+  public long nextTick = System.nanoTime();
 
   /**
    * the executed task.
@@ -150,7 +199,7 @@ public final class ShirukaTick extends AsyncTaskHandlerReentrant<TickTask> imple
   private boolean hasExecutedTask;
 
   /**
-   * the last overload time.
+   * the nanos of the last overload warning.
    */
   private long lastOverloadTime;
 
@@ -165,7 +214,7 @@ public final class ShirukaTick extends AsyncTaskHandlerReentrant<TickTask> imple
   private boolean overslept;
 
   /**
-   * the tick oversleep max time.
+   * the nanos that the server thread can oversleep until while it executes tasks.
    */
   private long tickOversleepMaxTime;
 
@@ -174,6 +223,11 @@ public final class ShirukaTick extends AsyncTaskHandlerReentrant<TickTask> imple
    */
   private int ticks;
 
+  /**
+   * the nanos that the current tick started at, or 0 between the ticks.
+   */
+  private volatile long tickStart;
+
   /**
    * ctor.
    *
@@ -184,6 +238,41 @@ public final class ShirukaTick extends AsyncTaskHandlerReentrant<TickTask> imple
     this.server = server;
   }
 
+  /**
+   * obtains the lateness statistics of the ticks that started on schedule for the last minute.
+   * <p>
+   * the values are milliseconds between the scheduled start and the actual start of the tick.
+   *
+   * @return jitter of the tick loop.
+   */
+  @NotNull
+  public static TickTimes.Snapshot getJitter() {
+    return ShirukaTick.JITTER.snapshot(ShirukaTick.TPS * 60);
+  }
+
+  /**
+   * obtains the milliseconds per tick statistics of the server.
+   *
+   * @return an array which has 3 tick time statistics for 1, 5, and 15 minutes.
+   */
+  @NotNull
+  public static TickTimes.Snapshot[] getMspt() {
+    return new TickTimes.Snapshot[]{
+      ShirukaTick.TICK_TIMES.snapshot(ShirukaTick.TPS * 60),
+      ShirukaTick.TICK_TIMES.snapshot(ShirukaTick.TPS * 60 * 5),
+      ShirukaTick.TICK_TIMES.snapshot(ShirukaTick.TPS * 60 * 15)
+    };
+  }
+
+  /**
+   * obtains the exponential moving average of the milliseconds per tick.
+   *
+   * @return recent milliseconds per tick.
+   */
+  public static double getRecentMspt() {
+    return ShirukaTick.TICK_TIMES.getRecentMspt();
+  }
+
   /**
    * obtains the tps of the server.
    *
@@ -197,6 +286,15 @@ public final class ShirukaTick extends AsyncTaskHandlerReentrant<TickTask> imple
     };
   }
 
+  /**
+   * obtains the nanos that the current tick started at.
+   *
+   * @return start nanos of the current tick, or 0 if the server thread is between the ticks.
+   */
+  public long getTickStart() {
+    return this.tickStart;
+  }
+
   /**
    * checks if the thread can sleep for tick.
    *
@@ -208,7 +306,7 @@ public final class ShirukaTick extends AsyncTaskHandlerReentrant<TickTask> imple
     }
     return this.forceTicks ||
       this.isEntered() ||
-      SystemUtils.getMonotonicMillis() < (this.hasExecutedTask ? this.tickOversleepMaxTime : this.nextTick);
+      System.nanoTime() < (this.hasExecutedTask ? this.tickOversleepMaxTime : this.nextTick);
   }
 
   @Override
@@ -222,33 +320,43 @@ public final class ShirukaTick extends AsyncTaskHandlerReentrant<TickTask> imple
   @Override
   public void run() {
     final var start = System.nanoTime();
+    final var maxCatchUp = Math.max(ServerConfig.MAX_CATCH_UP_TICKS.getValue().orElse(100), 0) *
+      (long) ShirukaTick.TICK_TIME;
+    final var warnOnOverload = ServerConfig.WARN_ON_OVERLOAD.getValue().orElse(true);
     var currentTime = 0L;
     var tickSection = start;
     this.lastTick = start - ShirukaTick.TICK_TIME;
+    this.lastOverloadTime = start - ShirukaTick.OVERLOAD_WARN_INTERVAL;
     try {
       while (this.server.isRunning()) {
-        final var now = (currentTime = System.nanoTime()) / (1000L * 1000L) - this.nextTick;
-        if (now > 5000L && this.nextTick - this.lastOverloadTime >= 30000L) {
-          final var waitTime = now / 50L;
-          ShirukaTick.LOGGER.warn(TranslatedText.get(ShirukaTick.SERVER_OVERLOAD, now, waitTime));
-          this.nextTick += waitTime * 50L;
-          this.lastOverloadTime = this.nextTick;
+        currentTime = System.nanoTime();
+        final var behind = currentTime - this.nextTick;
+        if (behind > maxCatchUp && behind >= ShirukaTick.TICK_TIME) {
+          final var skipped = behind / ShirukaTick.TICK_TIME;
+          if (warnOnOverload && this.nextTick - this.lastOverloadTime >= ShirukaTick.OVERLOAD_WARN_INTERVAL) {
+            ShirukaTick.LOGGER.warn(TranslatedText.get(ShirukaTick.SERVER_OVERLOAD,
+              TimeUnit.NANOSECONDS.toMillis(behind), skipped));
+            this.lastOverloadTime = this.nextTick;
+          }
+          this.nextTick += skipped * ShirukaTick.TICK_TIME;
+        } else if (behind >= 0L && behind < ShirukaTick.TICK_TIME) {
+          ShirukaTick.JITTER.add(behind);
         }
         if (++ShirukaTick.currentTick % ShirukaTick.SAMPLE_INTERVAL == 0) {
           final var different = currentTime - tickSection;
-          final var currentTps = ShirukaTick.TPS_BASE.divide(new BigDecimal(different), 30,
-            RoundingMode.HALF_UP);
-          ShirukaTick.TPS_1.add(currentTps, different);
-          ShirukaTick.TPS_5.add(currentTps, different);
-          ShirukaTick.TPS_15.add(currentTps, different);
+          ShirukaTick.TPS_1.add(different);
+          ShirukaTick.TPS_5.add(different);
+          ShirukaTick.TPS_15.add(different);
           tickSection = currentTime;
         }
         this.lastTick = currentTime;
-        this.nextTick += 50;
+        this.nextTick += ShirukaTick.TICK_TIME;
+        this.tickStart = currentTime;
         this.doTick();
+        this.tickStart = 0L;
         this.hasExecutedTask = true;
-        this.tickOversleepMaxTime = Math.max(SystemUtils.getMonotonicMillis() + 50L, this.nextTick);
-        this.awaitTasks(() -> !this.canSleepForTickNoOversleep());
+        this.tickOversleepMaxTime = Math.max(System.nanoTime() + ShirukaTick.TICK_TIME, this.nextTick);
+        this.awaitTasks(() -> !this.canSleepForTickNoOversleep(), this.nextTick);
       }
     } catch (final Throwable e) {
       JiraExceptionCatcher.serverException(e);
@@ -294,7 +402,7 @@ public final class ShirukaTick extends AsyncTaskHandlerReentrant<TickTask> imple
    * @return {@code true} if server can oversleep.
    */
   private boolean canOversleep() {
-    return this.hasExecutedTask && SystemUtils.getMonotonicMillis() < this.tickOversleepMaxTime;
+    return this.hasExecutedTask && System.nanoTime() < this.tickOversleepMaxTime;
   }
 
   /**
@@ -303,7 +411,7 @@ public final class ShirukaTick extends AsyncTaskHandlerReentrant<TickTask> imple
    * @return {@code true} if server can sleep for tick no oversleep.
    */
   private boolean canSleepForTickNoOversleep() {
-    return this.forceTicks || this.isEntered() || SystemUtils.getMonotonicMillis() < this.nextTick;
+    return this.forceTicks || this.isEntered() || System.nanoTime() < this.nextTick;
   }
 
   /**
@@ -314,6 +422,7 @@ public final class ShirukaTick extends AsyncTaskHandlerReentrant<TickTask> imple
       final var peer = this.pending.dequeue();
       this.connectedPlayers.put(peer.getAddress(), new PlayerConnection(peer, this.server));
     }
+    this.server.getLoginAdmission().tick();
     final var iterator = this.connectedPlayers.values().iterator();
     while (iterator.hasNext()) {
       final var connection = iterator.next();
@@ -323,11 +432,17 @@ public final class ShirukaTick extends AsyncTaskHandlerReentrant<TickTask> imple
       }
       try {
         connection.tick();
+        this.flushing.add(connection);
       } catch (final Exception e) {
         connection.disconnect(TranslatedTexts.LOGIN_ERROR);
         JiraExceptionCatcher.serverException(e);
       }
     }
+    ConnectionWorkers.flush(this.flushing);
+    this.flushing.clear();
+    final var packTransferScheduler = this.server.getPackTransferScheduler();
+    packTransferScheduler.tick();
+    this.server.getPackManager().closeRetired(packTransferScheduler::isTransferring);
   }
 
   /**
@@ -336,24 +451,34 @@ public final class ShirukaTick extends AsyncTaskHandlerReentrant<TickTask> imple
   private void doTick() {
     final var now = System.nanoTime();
     this.overslept = true;
-    this.awaitTasks(() -> !this.canOversleep());
+    this.awaitTasks(() -> !this.canOversleep(), this.tickOversleepMaxTime);
     this.overslept = false;
     Shiruka.getEventManager().serverTickStart(++this.ticks).callEvent();
+    var start = Timings.start();
     this.server.getScheduler().mainThreadHeartbeat(this.ticks);
+    start = ShirukaTick.SCHEDULER_TIMING.stop(start);
     while (!this.processQueue.isEmpty()) {
       this.processQueue.remove().run();
     }
+    start = ShirukaTick.PROCESS_QUEUE_TIMING.stop(start);
     this.worldTick();
+    start = ShirukaTick.WORLD_TIMING.stop(start);
     this.connectionTick();
+    start = ShirukaTick.CONNECTION_TIMING.stop(start);
     this.handleCommands();
+    start = ShirukaTick.COMMANDS_TIMING.stop(start);
     if (now - this.lastPingTime >= 5000000000L) {
       this.lastPingTime = now;
       this.server.updatePing();
     }
     this.executeAll();
+    ShirukaTick.TASKS_TIMING.stop(start);
     final var endTime = System.nanoTime();
-    final var remaining = ShirukaTick.TICK_TIME - (endTime - this.lastTick);
-    final var duration = (double) (endTime - this.lastTick) / 1000000D;
+    final var elapsed = endTime - this.lastTick;
+    final var remaining = ShirukaTick.TICK_TIME - elapsed;
+    final var duration = (double) elapsed / 1000000D;
+    ShirukaTick.TICK_TIMES.add(elapsed);
+    this.server.getLoginAdmission().updateHeadroom(remaining);
     Shiruka.getEventManager().serverTickEnd(this.ticks, duration, remaining).callEvent();
   }
 
@@ -0,0 +1,280 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.concurrent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import net.shiruka.api.text.TranslatedText;
+import net.shiruka.shiruka.ShirukaMain;
+import net.shiruka.shiruka.ShirukaServer;
+import net.shiruka.shiruka.config.ServerConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that watches the server thread and samples its stack while a single tick runs longer than the threshold.
+ * <p>
+ * the samples are aggregated as folded stacks, one {@code root;...;leaf count} line per distinct call tree, which
+ * flame graph tools read directly. the report is written when the tick ends, and once more while it is still running
+ * after {@link #STUCK_NANOS} so a frozen server leaves a report as well.
+ */
+public final class TickWatchdog implements Closeable {
+
+  /**
+   * the logger.
+   */
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  /**
+   * the reports path.
+   */
+  private static final Path REPORTS_PATH = ShirukaMain.HOME_PATH.resolve("watchdog");
+
+  /**
+   * the report message.
+   */
+  private static final String REPORT = "shiruka.server.watchdog";
+
+  /**
+   * the tick duration that writes a report while the tick is still running.
+   */
+  private static final long STUCK_NANOS = TimeUnit.SECONDS.toNanos(30L);
+
+  /**
+   * the sample interval.
+   */
+  private final long interval;
+
+  /**
+   * the server.
+   */
+  @NotNull
+  private final ShirukaServer server;
+
+  /**
+   * the stacks and their sample counts.
+   */
+  private final Map<String, Integer> stacks = new LinkedHashMap<>();
+
+  /**
+   * the tasks and their sample counts.
+   */
+  private final Map<String, Integer> tasks = new LinkedHashMap<>();
+
+  /**
+   * the thread.
+   */
+  @NotNull
+  private final Thread thread;
+
+  /**
+   * the threshold.
+   */
+  private final long threshold;
+
+  /**
+   * the start nanos of the sampled tick.
+   */
+  private long sampledTick;
+
+  /**
+   * the elapsed nanos of the last sample.
+   */
+  private long sampledTime;
+
+  /**
+   * the sample count.
+   */
+  private int samples;
+
+  /**
+   * the stuck report is written.
+   */
+  private boolean stuckReported;
+
+  /**
+   * ctor.
+   *
+   * @param server the server.
+   * @param threshold the threshold.
+   * @param interval the interval.
+   */
+  private TickWatchdog(@NotNull final ShirukaServer server, final long threshold, final long interval) {
+    this.server = server;
+    this.threshold = threshold;
+    this.interval = interval;
+    this.thread = new Thread(this::run, "Shiruka Watchdog");
+    this.thread.setDaemon(true);
+  }
+
+  /**
+   * starts a watchdog for the given {@code server} if the threshold in the config is positive.
+   *
+   * @param server the server to watch.
+   *
+   * @return started watchdog, or {@code null} if it is disabled.
+   */
+  @Nullable
+  public static TickWatchdog start(@NotNull final ShirukaServer server) {
+    final int threshold = ServerConfig.WATCHDOG_THRESHOLD.getValue().orElse(1000);
+    if (threshold <= 0) {
+      return null;
+    }
+    final int interval = ServerConfig.WATCHDOG_SAMPLE_INTERVAL.getValue().orElse(10);
+    final var watchdog = new TickWatchdog(server, TimeUnit.MILLISECONDS.toNanos(threshold),
+      TimeUnit.MILLISECONDS.toNanos(Math.max(interval, 1)));
+    watchdog.thread.start();
+    return watchdog;
+  }
+
+  /**
+   * converts the given {@code stack} into a folded stack line from the root to the leaf.
+   *
+   * @param stack the stack to convert.
+   *
+   * @return folded stack.
+   */
+  @NotNull
+  private static String fold(@NotNull final StackTraceElement[] stack) {
+    final var joiner = new StringJoiner(";");
+    for (var i = stack.length - 1; i >= 0; i--) {
+      joiner.add(stack[i].getClassName() + "." + stack[i].getMethodName());
+    }
+    return joiner.toString();
+  }
+
+  @Override
+  public void close() {
+    this.thread.interrupt();
+  }
+
+  /**
+   * clears the samples of the last tick.
+   */
+  private void clear() {
+    this.stacks.clear();
+    this.tasks.clear();
+    this.samples = 0;
+    this.sampledTick = 0L;
+    this.sampledTime = 0L;
+    this.stuckReported = false;
+  }
+
+  /**
+   * writes the samples into a report file.
+   *
+   * @param running the tick is still running.
+   */
+  private void report(final boolean running) {
+    final var millis = TimeUnit.NANOSECONDS.toMillis(this.sampledTime);
+    final var builder = new StringBuilder()
+      .append("# tick took at least ").append(millis).append("ms")
+      .append(running ? " and is still running" : "").append('\n')
+      .append("# ").append(this.samples).append(" samples every ")
+      .append(TimeUnit.NANOSECONDS.toMillis(this.interval)).append("ms").append('\n');
+    this.tasks.forEach((task, count) ->
+      builder.append("# task ").append(task).append(' ').append(count).append('\n'));
+    this.stacks.entrySet().stream()
+      .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+      .forEach(entry -> builder.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n'));
+    final var file = TickWatchdog.REPORTS_PATH.resolve(
+      "lag-" + new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date()) + ".txt");
+    try {
+      Files.createDirectories(TickWatchdog.REPORTS_PATH);
+      Files.writeString(file, builder, StandardCharsets.UTF_8);
+      TickWatchdog.LOGGER.warn(TranslatedText.get(TickWatchdog.REPORT, millis, file));
+    } catch (final IOException e) {
+      TickWatchdog.LOGGER.error("Unable to write the watchdog report {}", file, e);
+    }
+  }
+
+  /**
+   * samples the server thread until the watchdog is closed.
+   */
+  private void run() {
+    final var tick = this.server.getTick();
+    final var serverThread = this.server.getServerThread();
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        TimeUnit.NANOSECONDS.sleep(this.interval);
+        final var start = tick.getTickStart();
+        if (this.sampledTick != 0L && this.sampledTick != start) {
+          this.report(false);
+          this.clear();
+        }
+        if (start == 0L) {
+          continue;
+        }
+        final var elapsed = System.nanoTime() - start;
+        if (elapsed < this.threshold) {
+          continue;
+        }
+        this.sample(serverThread, start, elapsed);
+        if (!this.stuckReported && elapsed >= TickWatchdog.STUCK_NANOS) {
+          this.report(true);
+          this.stuckReported = true;
+        }
+      }
+    } catch (final InterruptedException ignored) {
+      // ignored.
+    }
+  }
+
+  /**
+   * samples the stack of the given {@code serverThread} and the task that it runs.
+   *
+   * @param serverThread the server thread to sample.
+   * @param start the start nanos of the tick.
+   * @param elapsed the elapsed nanos of the tick.
+   */
+  private void sample(@NotNull final Thread serverThread, final long start, final long elapsed) {
+    final var stack = serverThread.getStackTrace();
+    if (stack.length == 0) {
+      return;
+    }
+    this.sampledTick = start;
+    this.sampledTime = elapsed;
+    this.samples++;
+    this.stacks.merge(TickWatchdog.fold(stack), 1, Integer::sum);
+    final var task = this.server.getScheduler().getCurrentTask();
+    if (task != null) {
+      final var owner = task.getOwner();
+      final var name = (owner == null ? "unknown" : owner.getDescription().getName()) + "#" + task.getTaskId();
+      this.tasks.merge(name, 1, Integer::sum);
+    }
+  }
+}
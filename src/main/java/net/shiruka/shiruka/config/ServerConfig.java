@@ -64,6 +64,26 @@ public final class ServerConfig extends PathableConfig {
     "compression-threshold", 256),
     "the amount of bytes before compressing packets.\n" + "use -1 to disable.");
 
+  /**
+   * the amount of threads that encode and compress outgoing packets.
+   * <p>
+   * use 0 to determine by the processor count.
+   */
+  public static final ConfigPath<Integer> COMPRESSION_THREADS = commented(integerPath(
+    "compression-threads", 0),
+    "the amount of threads that encode and compress outgoing packets.\n" +
+      "use 0 to determine by the processor count.");
+
+  /**
+   * the amount of threads that flush the connections in parallel.
+   * <p>
+   * use 0 to hand the queued packets to the compression threads from the server thread.
+   */
+  public static final ConfigPath<Integer> CONNECTION_TICK_THREADS = commented(integerPath(
+    "connection-tick-threads", 0),
+    "the amount of threads that encode and compress the queued packets of the connections in parallel every tick.\n" +
+      "use 0 to hand the queued packets to the compression threads from the server thread.");
+
   /**
    * name of the over world.
    */
@@ -107,11 +127,60 @@ public final class ServerConfig extends PathableConfig {
     "loaded languages of the Shiru ka. (will update automatically)");
 
   /**
-   * the maximum login handling per tick.
+   * the maximum logins that wait for a login thread.
+   * <p>
+   * the logins that exceed the queue are disconnected immediately.
+   */
+  public static final ConfigPath<Integer> LOGIN_QUEUE_SIZE = commented(integerPath(
+    "login-queue-size", 256),
+    "the maximum logins that wait for a login thread.\n" +
+      "the logins that exceed the queue are disconnected immediately.");
+
+  /**
+   * the logins per second that the server admits.
+   * <p>
+   * the rate is lowered automatically while the server is overloaded.
+   */
+  public static final ConfigPath<Integer> LOGIN_RATE_PER_SECOND = commented(integerPath(
+    "login-rate-per-second", 40),
+    "the logins per second that the server admits.\n" +
+      "the rate is lowered automatically while the server is overloaded.");
+
+  /**
+   * the logins per second that the server admits from a single subnet.
+   * <p>
+   * use 0 to disable, for example when the players join through a proxy.
    */
-  public static final ConfigPath<Integer> MAX_LOGIN_PER_TICK = commented(integerPath(
-    "max-login-per-tick", 1),
-    "determines the maximum login process, that will handle, per tick.");
+  public static final ConfigPath<Integer> LOGIN_RATE_PER_SUBNET = commented(integerPath(
+    "login-rate-per-subnet", 2),
+    "the logins per second that the server admits from a single subnet (/24 for ipv4, /64 for ipv6).\n" +
+      "use 0 to disable, for example when the players join through a proxy.");
+
+  /**
+   * the amount of threads that verify the logins.
+   * <p>
+   * use 0 to determine by the processor count.
+   */
+  public static final ConfigPath<Integer> LOGIN_THREADS = commented(integerPath(
+    "login-threads", 0),
+    "the amount of threads that verify the logins.\n" +
+      "use 0 to determine by the processor count.");
+
+  /**
+   * the maximum ticks to run back to back after a lag spike.
+   */
+  public static final ConfigPath<Integer> MAX_CATCH_UP_TICKS = commented(integerPath(
+    "max-catch-up-ticks", 100),
+    "the maximum ticks that the server runs back to back to catch up after a lag spike.\n" +
+      "the ticks that are behind more than that are skipped, use 0 to skip every late tick.");
+
+  /**
+   * the maximum incoming packets handling per connection per tick.
+   */
+  public static final ConfigPath<Integer> MAX_PACKETS_PER_TICK = commented(integerPath(
+    "max-packets-per-tick", 64),
+    "determines the maximum incoming packets of a connection, that will handle, per tick.\n" +
+      "the rest of the packets wait for the next tick.");
 
   /**
    * whether to use Mojang auth to check players.
@@ -127,6 +196,44 @@ public final class ServerConfig extends PathableConfig {
     "ops-pass-player-limit", true),
     "Ops will able to join the server which is full.");
 
+  /**
+   * the pack auto reload.
+   */
+  public static final ConfigPath<Boolean> PACK_AUTO_RELOAD = commented(booleanPath(
+    "pack-auto-reload", false),
+    "reloads the resource packs when the packs directory changes.\n" +
+      "only the newly joining players receive the reloaded packs.");
+
+  /**
+   * the compression level of the archives that are built from the directory packs.
+   * <p>
+   * use -1 for the default level, 0 to store the files without compression.
+   */
+  public static final ConfigPath<Integer> PACK_COMPRESSION_LEVEL = commented(integerPath(
+    "pack-compression-level", 6),
+    "the compression level (0-9) of the archives that are built from the directory packs.\n" +
+      "use -1 for the default level, 0 to store the files without compression.");
+
+  /**
+   * the total bytes per second that resource pack downloads can send.
+   * <p>
+   * use 0 to disable the limit.
+   */
+  public static final ConfigPath<Integer> PACK_TRANSFER_BYTES_PER_SECOND = commented(integerPath(
+    "pack-transfer-bytes-per-second", 8 * 1024 * 1024),
+    "the total bytes per second that resource pack downloads can send.\n" +
+      "use 0 to disable the limit.");
+
+  /**
+   * the maximum resource pack downloads at the same time.
+   * <p>
+   * use 0 to disable the limit.
+   */
+  public static final ConfigPath<Integer> PACK_TRANSFER_MAX_DOWNLOADS = commented(integerPath(
+    "pack-transfer-max-downloads", 8),
+    "the maximum resource pack downloads at the same time, the others wait in a queue.\n" +
+      "use 0 to disable the limit.");
+
   /**
    * server's ipv4 port.
    */
@@ -148,6 +255,14 @@ public final class ServerConfig extends PathableConfig {
     "server-language", Locale.ROOT),
     "language of the Shiru ka.");
 
+  /**
+   * "true" to record the tick phase, task and event timings.
+   */
+  public static final ConfigPath<Boolean> TIMINGS_ENABLED = commented(booleanPath(
+    "timings.enabled", true),
+    "\"true\" to record the tick phase, task and event timings.\n" +
+      "the report can be exported with the timings command.");
+
   /**
    * the timings server name.
    */
@@ -169,6 +284,21 @@ public final class ServerConfig extends PathableConfig {
     "warn-on-overload", true),
     "shows warning when server overloads.");
 
+  /**
+   * the sample interval of the watchdog as milliseconds.
+   */
+  public static final ConfigPath<Integer> WATCHDOG_SAMPLE_INTERVAL = commented(integerPath(
+    "watchdog.sample-interval", 10),
+    "the interval as milliseconds that the watchdog samples the server thread's stack during a long tick.");
+
+  /**
+   * the tick duration as milliseconds that starts the watchdog sampling.
+   */
+  public static final ConfigPath<Integer> WATCHDOG_THRESHOLD = commented(integerPath(
+    "watchdog.threshold", 1000),
+    "the tick duration as milliseconds that starts sampling the server thread's stack.\n" +
+      "the samples are written into the watchdog directory when the tick ends, use 0 to disable.");
+
   /**
    * the white list to prevent join random players.
    */
@@ -52,6 +52,7 @@ import net.shiruka.shiruka.events.server.SimpleServerCommandEvent;
 import net.shiruka.shiruka.events.server.SimpleServerExceptionEvent;
 import net.shiruka.shiruka.events.server.SimpleServerTickEndEvent;
 import net.shiruka.shiruka.events.server.SimpleServerTickStartEvent;
+import net.shiruka.shiruka.timings.Timings;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -67,7 +68,11 @@ public final class SimpleEventManager implements EventManager {
 
   @Override
   public void call(@NotNull final Event event) {
+    final var start = Timings.start();
     this.adapter.call(event);
+    if (start != Timings.DISABLED) {
+      Timings.ofEvent(event.getClass()).stop(start);
+    }
   }
 
   @NotNull
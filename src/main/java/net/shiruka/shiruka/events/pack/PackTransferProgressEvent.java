@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.events.pack;
+
+import net.shiruka.api.base.GameProfile;
+import net.shiruka.api.events.Event;
+import net.shiruka.api.pack.Pack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * an event that is called on the server thread every time a resource pack chunk is sent to a connection.
+ */
+public final class PackTransferProgressEvent implements Event {
+
+  /**
+   * the pack.
+   */
+  @NotNull
+  private final Pack pack;
+
+  /**
+   * the profile.
+   */
+  @Nullable
+  private final GameProfile profile;
+
+  /**
+   * the sent bytes.
+   */
+  private final long sentBytes;
+
+  /**
+   * the total bytes.
+   */
+  private final long totalBytes;
+
+  /**
+   * ctor.
+   *
+   * @param pack the pack.
+   * @param profile the profile.
+   * @param sentBytes the sent bytes.
+   * @param totalBytes the total bytes.
+   */
+  public PackTransferProgressEvent(@NotNull final Pack pack, @Nullable final GameProfile profile,
+                                   final long sentBytes, final long totalBytes) {
+    this.pack = pack;
+    this.profile = profile;
+    this.sentBytes = sentBytes;
+    this.totalBytes = totalBytes;
+  }
+
+  /**
+   * obtains the pack.
+   *
+   * @return pack.
+   */
+  @NotNull
+  public Pack getPack() {
+    return this.pack;
+  }
+
+  /**
+   * obtains the profile of the downloader.
+   *
+   * @return profile, or {@code null} if the login has not verified the downloader yet.
+   */
+  @Nullable
+  public GameProfile getProfile() {
+    return this.profile;
+  }
+
+  /**
+   * obtains the sent bytes.
+   *
+   * @return sent bytes.
+   */
+  public long getSentBytes() {
+    return this.sentBytes;
+  }
+
+  /**
+   * obtains the total bytes.
+   *
+   * @return total bytes.
+   */
+  public long getTotalBytes() {
+    return this.totalBytes;
+  }
+
+  /**
+   * checks if the last chunk of the pack is sent.
+   *
+   * @return {@code true} if the transfer is completed.
+   */
+  public boolean isCompleted() {
+    return this.sentBytes >= this.totalBytes;
+  }
+}
@@ -0,0 +1,287 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.network;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import net.shiruka.shiruka.concurrent.ShirukaTick;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that admits the pending entries in arrival order with a server token bucket and a token bucket per subnet.
+ * <p>
+ * the subnet key and the disconnect check of the entries are given as functions, so the queue does not depend on the
+ * connections.
+ *
+ * @param <T> type of the entries.
+ */
+final class AdmissionQueue<T> {
+
+  /**
+   * the minimum share of the server rate, while the server is overloaded.
+   */
+  private static final double MIN_RATE_FACTOR = 0.1d;
+
+  /**
+   * the nanoseconds in a second.
+   */
+  private static final double NANOS_PER_SECOND = 1_000_000_000.0d;
+
+  /**
+   * the admitted entries that have not been polled yet.
+   */
+  private final Set<T> admitted = new ObjectOpenHashSet<>();
+
+  /**
+   * the disconnected check of the entries.
+   */
+  @NotNull
+  private final Predicate<T> disconnected;
+
+  /**
+   * the pending entries in arrival order.
+   */
+  private final ObjectLinkedOpenHashSet<T> pending = new ObjectLinkedOpenHashSet<>();
+
+  /**
+   * the entries per second that the server admits, and the maximum entries that the server can admit at once.
+   */
+  private final double rate;
+
+  /**
+   * the subnet key of the entries.
+   */
+  @NotNull
+  private final Function<T, String> subnet;
+
+  /**
+   * the maximum entries that a subnet can be admitted at once.
+   */
+  private final double subnetBurst;
+
+  /**
+   * the entries per second that a subnet can be admitted, or 0 to disable.
+   */
+  private final double subnetRate;
+
+  /**
+   * the token buckets of the subnets.
+   */
+  private final Map<String, Bucket> subnets = new Object2ObjectOpenHashMap<>();
+
+  /**
+   * the last refill time.
+   */
+  private long lastRefill = System.nanoTime();
+
+  /**
+   * the share of the server rate, by the headroom of the last tick.
+   */
+  private double rateFactor = 1.0d;
+
+  /**
+   * the entries that the server can admit.
+   */
+  private double tokens;
+
+  /**
+   * ctor.
+   *
+   * @param rate the entries per second that the server admits.
+   * @param subnetRate the entries per second that a subnet can be admitted, or 0 to disable.
+   * @param subnet the subnet key of the entries.
+   * @param disconnected the disconnected check of the entries.
+   */
+  AdmissionQueue(final double rate, final double subnetRate, @NotNull final Function<T, String> subnet,
+                 @NotNull final Predicate<T> disconnected) {
+    this.rate = Math.max(1.0d, rate);
+    this.subnetRate = Math.max(0.0d, subnetRate);
+    this.subnetBurst = Math.max(1.0d, this.subnetRate * 5.0d);
+    this.subnet = subnet;
+    this.disconnected = disconnected;
+    this.tokens = this.rate;
+  }
+
+  /**
+   * adds the given entry into the end of the queue, if it's not queued or admitted yet.
+   *
+   * @param entry the entry to add.
+   */
+  void enqueue(@NotNull final T entry) {
+    if (!this.admitted.contains(entry)) {
+      this.pending.add(entry);
+    }
+  }
+
+  /**
+   * obtains the pending entry count.
+   *
+   * @return pending entries.
+   */
+  int getPendingCount() {
+    return this.pending.size();
+  }
+
+  /**
+   * obtains the position of the given entry in the queue.
+   *
+   * @param entry the entry to obtain.
+   *
+   * @return the position that starts from 1, or 0 if the entry is not queued.
+   */
+  int getPosition(@NotNull final T entry) {
+    if (!this.pending.contains(entry)) {
+      return 0;
+    }
+    var position = 1;
+    for (final var queued : this.pending) {
+      if (queued == entry) {
+        return position;
+      }
+      position++;
+    }
+    return 0;
+  }
+
+  /**
+   * obtains the entries that the server can admit.
+   *
+   * @return tokens.
+   */
+  double getTokens() {
+    return this.tokens;
+  }
+
+  /**
+   * checks if the given entry is admitted, and removes it from the admitted entries.
+   *
+   * @param entry the entry to check.
+   *
+   * @return {@code true} if the entry is admitted.
+   */
+  boolean poll(@NotNull final T entry) {
+    return this.admitted.remove(entry);
+  }
+
+  /**
+   * removes the given entry from the queue.
+   *
+   * @param entry the entry to remove.
+   */
+  void remove(@NotNull final T entry) {
+    this.pending.remove(entry);
+    this.admitted.remove(entry);
+  }
+
+  /**
+   * admits the oldest pending entries as far as the token buckets allow.
+   * <p>
+   * an entry whose subnet bucket is empty is skipped and keeps its position, so the entries of the other subnets
+   * behind it are still admitted.
+   *
+   * @param now the current nano time.
+   */
+  void tick(final long now) {
+    final var elapsed = (now - this.lastRefill) / AdmissionQueue.NANOS_PER_SECOND;
+    this.lastRefill = now;
+    this.tokens = Math.min(this.rate, this.tokens + this.rate * this.rateFactor * elapsed);
+    this.refillSubnets(elapsed);
+    this.admitted.removeIf(this.disconnected);
+    final var iterator = this.pending.iterator();
+    while (iterator.hasNext() && this.tokens >= 1.0d) {
+      final var entry = iterator.next();
+      if (this.disconnected.test(entry)) {
+        iterator.remove();
+        continue;
+      }
+      if (this.subnetRate > 0.0d) {
+        final var bucket = this.subnets.computeIfAbsent(this.subnet.apply(entry),
+          key -> new Bucket(this.subnetBurst));
+        if (bucket.tokens < 1.0d) {
+          continue;
+        }
+        bucket.tokens--;
+      }
+      this.tokens--;
+      iterator.remove();
+      this.admitted.add(entry);
+    }
+  }
+
+  /**
+   * updates the share of the server rate by the headroom of the last tick.
+   *
+   * @param remaining the remaining nanoseconds of the last tick, negative if the tick took longer than it should.
+   */
+  void updateHeadroom(final long remaining) {
+    final var headroom = (double) remaining / ShirukaTick.TICK_TIME;
+    this.rateFactor = Math.max(AdmissionQueue.MIN_RATE_FACTOR, Math.min(1.0d, headroom * 2.0d));
+  }
+
+  /**
+   * refills the token buckets of the subnets, and removes the full ones.
+   *
+   * @param elapsed the elapsed seconds since the last refill.
+   */
+  private void refillSubnets(final double elapsed) {
+    if (this.subnets.isEmpty()) {
+      return;
+    }
+    final var iterator = this.subnets.values().iterator();
+    while (iterator.hasNext()) {
+      final var bucket = iterator.next();
+      bucket.tokens = Math.min(this.subnetBurst, bucket.tokens + this.subnetRate * elapsed);
+      if (bucket.tokens >= this.subnetBurst) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * a class that represents the token buckets of the subnets.
+   */
+  private static final class Bucket {
+
+    /**
+     * the tokens.
+     */
+    private double tokens;
+
+    /**
+     * ctor.
+     *
+     * @param tokens the tokens.
+     */
+    private Bucket(final double tokens) {
+      this.tokens = tokens;
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.network;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import net.shiruka.shiruka.config.ServerConfig;
+import net.shiruka.shiruka.network.packets.ResourcePackChunkDataPacket;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that determines the compression level of the outgoing batches.
+ * <p>
+ * batches smaller than {@link ServerConfig#COMPRESSION_THRESHOLD} are stored without compressing, the rest are
+ * compressed with the highest level registered for the packets they contain.
+ */
+public final class BatchCompression {
+
+  /**
+   * the level for bulk data such as resource pack chunks.
+   */
+  public static final int BULK_LEVEL = Deflater.DEFAULT_COMPRESSION;
+
+  /**
+   * the level for latency-sensitive packets which is the default for the packets that have no registered level.
+   */
+  public static final int FAST_LEVEL = Deflater.BEST_SPEED;
+
+  /**
+   * the levels by packet classes.
+   */
+  private static final Map<Class<? extends ShirukaPacket>, Integer> LEVELS = new ConcurrentHashMap<>();
+
+  /**
+   * the compression threshold.
+   */
+  private static final int THRESHOLD = ServerConfig.COMPRESSION_THRESHOLD.getValue().orElse(256);
+
+  static {
+    BatchCompression.register(ResourcePackChunkDataPacket.class, BatchCompression.BULK_LEVEL);
+  }
+
+  /**
+   * ctor.
+   */
+  private BatchCompression() {
+  }
+
+  /**
+   * obtains the compression level of the given batch.
+   *
+   * @param packets the packets to get.
+   * @param size the uncompressed size of the batch.
+   *
+   * @return compression level.
+   */
+  public static int getLevel(@NotNull final Collection<ShirukaPacket> packets, final int size) {
+    return BatchCompression.getLevel(packets, size, BatchCompression.THRESHOLD);
+  }
+
+  /**
+   * obtains the compression level of the given packet class.
+   *
+   * @param cls the class to get.
+   *
+   * @return compression level.
+   */
+  public static int getLevel(@NotNull final Class<? extends ShirukaPacket> cls) {
+    return BatchCompression.LEVELS.getOrDefault(cls, BatchCompression.FAST_LEVEL);
+  }
+
+  /**
+   * registers the compression level of the given packet class.
+   *
+   * @param cls the class to register.
+   * @param level the level to register.
+   */
+  public static void register(@NotNull final Class<? extends ShirukaPacket> cls, final int level) {
+    BatchCompression.LEVELS.put(cls, level);
+  }
+
+  /**
+   * obtains the compression level of the given batch with the given compression threshold.
+   *
+   * @param packets the packets to get.
+   * @param size the uncompressed size of the batch.
+   * @param threshold the threshold to compare, a negative number disables compression.
+   *
+   * @return compression level.
+   */
+  static int getLevel(@NotNull final Collection<ShirukaPacket> packets, final int size, final int threshold) {
+    if (threshold < 0 || size < threshold) {
+      return Deflater.NO_COMPRESSION;
+    }
+    var level = BatchCompression.FAST_LEVEL;
+    for (final var packet : packets) {
+      final var packetLevel = BatchCompression.getLevel(packet.getPacketClass());
+      if (BatchCompression.compare(packetLevel, level) > 0) {
+        level = packetLevel;
+      }
+    }
+    return level;
+  }
+
+  /**
+   * compares the given compression levels.
+   *
+   * @param first the first level to compare.
+   * @param second the second level to compare.
+   *
+   * @return a positive number if the first level compresses more than the second one.
+   */
+  private static int compare(final int first, final int second) {
+    return Integer.compare(BatchCompression.normalize(first), BatchCompression.normalize(second));
+  }
+
+  /**
+   * normalizes {@link Deflater#DEFAULT_COMPRESSION} into its actual level.
+   *
+   * @param level the level to normalize.
+   *
+   * @return normalized level.
+   */
+  private static int normalize(final int level) {
+    return level == Deflater.DEFAULT_COMPRESSION ? 6 : level;
+  }
+}
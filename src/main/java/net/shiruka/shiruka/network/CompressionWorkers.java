@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.network;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.RejectedExecutionHandlers;
+import java.util.concurrent.TimeUnit;
+import net.shiruka.shiruka.config.ServerConfig;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that contains the worker threads which encode and compress outgoing batches off the main thread.
+ * <p>
+ * each connection is bound to a single worker by {@link #next()}, so its batches are sent in the order they were
+ * flushed.
+ */
+public final class CompressionWorkers {
+
+  /**
+   * the maximum pending batches per worker.
+   * <p>
+   * the tasks over the limit are rejected immediately, so the server thread never waits for a saturated worker.
+   */
+  private static final int MAX_PENDING_BATCHES = 16384;
+
+  /**
+   * the workers.
+   */
+  private static final EventExecutorGroup WORKERS = new DefaultEventExecutorGroup(
+    CompressionWorkers.getThreadCount(),
+    new ThreadFactoryBuilder()
+      .setNameFormat("Shiru ka Compression Thread - %1$d")
+      .setDaemon(true)
+      .build(),
+    CompressionWorkers.MAX_PENDING_BATCHES,
+    RejectedExecutionHandlers.reject());
+
+  /**
+   * ctor.
+   */
+  private CompressionWorkers() {
+  }
+
+  /**
+   * obtains the next worker to bind a connection.
+   *
+   * @return next worker.
+   */
+  @NotNull
+  public static EventExecutor next() {
+    return CompressionWorkers.WORKERS.next();
+  }
+
+  /**
+   * shutdowns the workers after the pending batches are sent.
+   */
+  public static void shutdown() {
+    CompressionWorkers.WORKERS.shutdownGracefully(0L, 5L, TimeUnit.SECONDS).syncUninterruptibly();
+  }
+
+  /**
+   * obtains the thread count from {@link ServerConfig#COMPRESSION_THREADS}.
+   *
+   * @return thread count.
+   */
+  private static int getThreadCount() {
+    final int threads = ServerConfig.COMPRESSION_THREADS.getValue().orElse(0);
+    if (threads > 0) {
+      return threads;
+    }
+    return Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.network;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import net.shiruka.shiruka.config.ServerConfig;
+import net.shiruka.shiruka.misc.JiraExceptionCatcher;
+import net.shiruka.shiruka.text.TranslatedTexts;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that contains the worker threads which flush the queued packets of the connections in parallel.
+ * <p>
+ * the server thread handles the incoming packets and the game state of every connection first, then splits the
+ * connections across the workers and waits for them. each worker drains the queues of its connections and encodes and
+ * compresses their batches, only the sending is left to the {@link CompressionWorkers} to keep the batches of a
+ * connection in order. since the server thread does not queue packets while waiting, every queue is drained by a
+ * single worker and the next tick sees the drained queues.
+ */
+public final class ConnectionWorkers {
+
+  /**
+   * the minimum connection count to flush in parallel.
+   */
+  private static final int MIN_PARALLEL_CONNECTIONS = 32;
+
+  /**
+   * the pool, or {@code null} if the connections are flushed on the server thread.
+   */
+  @Nullable
+  private static final ForkJoinPool POOL = ConnectionWorkers.createPool();
+
+  /**
+   * the connection count that a single task flushes without splitting.
+   */
+  private static final int SPLIT_THRESHOLD = 16;
+
+  /**
+   * ctor.
+   */
+  private ConnectionWorkers() {
+  }
+
+  /**
+   * flushes the queued packets of the given {@code connections} and returns when all of them are flushed.
+   * <p>
+   * if the connections are not flushed in parallel, the queued packets are handed to the {@link CompressionWorkers}
+   * to encode, compress and send.
+   *
+   * @param connections the connections to flush.
+   */
+  public static void flush(@NotNull final List<PlayerConnection> connections) {
+    final var pool = ConnectionWorkers.POOL;
+    if (pool == null || connections.size() < ConnectionWorkers.MIN_PARALLEL_CONNECTIONS) {
+      connections.forEach(connection -> ConnectionWorkers.flush(connection, false));
+      return;
+    }
+    pool.invoke(new FlushTask(connections, 0, connections.size()));
+  }
+
+  /**
+   * shutdowns the workers.
+   */
+  public static void shutdown() {
+    final var pool = ConnectionWorkers.POOL;
+    if (pool == null) {
+      return;
+    }
+    pool.shutdown();
+    try {
+      pool.awaitTermination(5L, TimeUnit.SECONDS);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * creates the pool from {@link ServerConfig#CONNECTION_TICK_THREADS}.
+   *
+   * @return pool, or {@code null} if the parallel flush is disabled.
+   */
+  @Nullable
+  private static ForkJoinPool createPool() {
+    final int threads = ServerConfig.CONNECTION_TICK_THREADS.getValue().orElse(0);
+    if (threads <= 0) {
+      return null;
+    }
+    return new ForkJoinPool(threads, pool -> {
+      final var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      thread.setName("Shiru ka Connection Thread - " + thread.getPoolIndex());
+      thread.setDaemon(true);
+      return thread;
+    }, null, false);
+  }
+
+  /**
+   * flushes the queued packets of the given {@code connection}.
+   *
+   * @param connection the connection to flush.
+   * @param encode whether to encode and compress the batches on the current thread.
+   */
+  private static void flush(@NotNull final PlayerConnection connection, final boolean encode) {
+    if (!connection.getConnection().isConnected()) {
+      return;
+    }
+    try {
+      if (encode) {
+        connection.flushQueuedPackets();
+      } else {
+        connection.handleQueuedPackets();
+      }
+    } catch (final Exception e) {
+      connection.disconnect(TranslatedTexts.LOGIN_ERROR);
+      JiraExceptionCatcher.serverException(e);
+    }
+  }
+
+  /**
+   * a class that represents a task which flushes a range of connections and splits it when it is large.
+   */
+  private static final class FlushTask extends RecursiveAction {
+
+    /**
+     * the connections.
+     */
+    @NotNull
+    private final List<PlayerConnection> connections;
+
+    /**
+     * the start index, inclusive.
+     */
+    private final int from;
+
+    /**
+     * the end index, exclusive.
+     */
+    private final int to;
+
+    /**
+     * ctor.
+     *
+     * @param connections the connections.
+     * @param from the from.
+     * @param to the to.
+     */
+    private FlushTask(@NotNull final List<PlayerConnection> connections, final int from, final int to) {
+      this.connections = connections;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.to - this.from <= ConnectionWorkers.SPLIT_THRESHOLD) {
+        for (var index = this.from; index < this.to; index++) {
+          ConnectionWorkers.flush(this.connections.get(index), true);
+        }
+        return;
+      }
+      final var middle = this.from + this.to >>> 1;
+      ForkJoinTask.invokeAll(new FlushTask(this.connections, this.from, middle),
+        new FlushTask(this.connections, middle, this.to));
+    }
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.network;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a {@link ZlibBackend} implementation that uses {@link Deflater} and {@link Inflater} of the JDK.
+ */
+final class JavaZlibBackend implements ZlibBackend {
+
+  @NotNull
+  @Override
+  public Compressor createCompressor(final boolean raw) {
+    final var deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+    return (input, output, level) -> {
+      deflater.reset();
+      deflater.setLevel(level);
+      deflater.setInput(input);
+      deflater.finish();
+      final var start = output.position();
+      while (!deflater.finished()) {
+        if (deflater.deflate(output) == 0 && !output.hasRemaining()) {
+          throw new IllegalStateException("Output buffer is too small to deflate!");
+        }
+      }
+      return output.position() - start;
+    };
+  }
+
+  @NotNull
+  @Override
+  public Decompressor createDecompressor(final boolean raw) {
+    final var inflater = new Inflater(raw);
+    return new Decompressor() {
+      @Override
+      public int inflate(@NotNull final ByteBuffer output) throws DataFormatException {
+        return inflater.inflate(output);
+      }
+
+      @Override
+      public boolean isFinished() {
+        return inflater.finished();
+      }
+
+      @Override
+      public void reset(@NotNull final ByteBuffer input) {
+        inflater.reset();
+        inflater.setInput(input);
+      }
+    };
+  }
+
+  @NotNull
+  @Override
+  public String getName() {
+    return "JDK";
+  }
+
+  @Override
+  public boolean isDirectOnly() {
+    return false;
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.network;
+
+import com.google.common.io.BaseEncoding;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.util.Arrays;
+import net.shiruka.shiruka.config.ServerConfig;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that admits the pending logins at a rate that the server can afford.
+ * <p>
+ * the logins wait in arrival order. each tick the oldest logins are admitted while the server token bucket and the
+ * token bucket of their subnet allow, so a single subnet can't starve the others. the refill rate of the server bucket
+ * is scaled down by the headroom of the last tick, so an overloaded server admits fewer logins, but the bucket can
+ * always hold at least one login, so even a low rate keeps admitting while overloaded.
+ * <p>
+ * the admission runs on the server thread.
+ */
+public final class LoginAdmission {
+
+  /**
+   * the hex encoding.
+   */
+  private static final BaseEncoding HEX = BaseEncoding.base16().lowerCase();
+
+  /**
+   * the queue of the connections.
+   */
+  @NotNull
+  private final AdmissionQueue<PlayerConnection> queue;
+
+  /**
+   * ctor.
+   *
+   * @param rate the logins per second that the server admits.
+   * @param subnetRate the logins per second that a subnet can be admitted, or 0 to disable.
+   */
+  LoginAdmission(final double rate, final double subnetRate) {
+    this.queue = new AdmissionQueue<>(rate, subnetRate,
+      connection -> LoginAdmission.subnet(connection.getConnection().getAddress().getAddress()),
+      connection -> connection.getConnection().isDisconnected());
+  }
+
+  /**
+   * ctor.
+   */
+  public LoginAdmission() {
+    this(ServerConfig.LOGIN_RATE_PER_SECOND.getValue().orElse(40),
+      ServerConfig.LOGIN_RATE_PER_SUBNET.getValue().orElse(2));
+  }
+
+  /**
+   * obtains the subnet key of the given {@code address}, a /24 for ipv4 and a /64 for ipv6.
+   *
+   * @param address the address to obtain.
+   *
+   * @return subnet key.
+   */
+  @NotNull
+  static String subnet(@NotNull final InetAddress address) {
+    final var bytes = address.getAddress();
+    final var length = address instanceof Inet4Address ? 3 : Math.min(8, bytes.length);
+    return LoginAdmission.HEX.encode(Arrays.copyOf(bytes, length));
+  }
+
+  /**
+   * adds the given connection into the end of the queue, if it's not queued or admitted yet.
+   *
+   * @param connection the connection to add.
+   */
+  public void enqueue(@NotNull final PlayerConnection connection) {
+    this.queue.enqueue(connection);
+  }
+
+  /**
+   * obtains the pending login count.
+   *
+   * @return pending logins.
+   */
+  public int getPendingLogins() {
+    return this.queue.getPendingCount();
+  }
+
+  /**
+   * obtains the position of the given connection in the queue.
+   *
+   * @param connection the connection to obtain.
+   *
+   * @return the position that starts from 1, or 0 if the connection is not queued.
+   */
+  public int getPosition(@NotNull final PlayerConnection connection) {
+    return this.queue.getPosition(connection);
+  }
+
+  /**
+   * checks if the given connection is admitted, and removes it from the admitted connections.
+   *
+   * @param connection the connection to check.
+   *
+   * @return {@code true} if the connection can start its login.
+   */
+  public boolean poll(@NotNull final PlayerConnection connection) {
+    return this.queue.poll(connection);
+  }
+
+  /**
+   * removes the given connection from the queue.
+   *
+   * @param connection the connection to remove.
+   */
+  public void remove(@NotNull final PlayerConnection connection) {
+    this.queue.remove(connection);
+  }
+
+  /**
+   * admits the oldest pending logins as far as the token buckets allow.
+   */
+  public void tick() {
+    this.queue.tick(System.nanoTime());
+  }
+
+  /**
+   * updates the share of the server rate by the headroom of the last tick.
+   *
+   * @param remaining the remaining nanoseconds of the last tick, negative if the tick took longer than it should.
+   */
+  public void updateHeadroom(final long remaining) {
+    this.queue.updateHeadroom(remaining);
+  }
+}
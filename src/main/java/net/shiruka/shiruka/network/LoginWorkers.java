@@ -0,0 +1,201 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.network;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import net.shiruka.shiruka.config.ServerConfig;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that contains the worker threads which decode and verify the login chains off the main thread.
+ * <p>
+ * the workers have a fixed size and a bounded queue, so a login flood is rejected quickly instead of creating a thread
+ * for each login.
+ */
+public final class LoginWorkers {
+
+  /**
+   * the logins that failed to verify.
+   */
+  private static final LongAdder FAILED = new LongAdder();
+
+  /**
+   * the total nanoseconds that the verified and the failed logins waited in the queue.
+   */
+  private static final LongAdder QUEUE_WAIT_NANOS = new LongAdder();
+
+  /**
+   * the rejected logins.
+   */
+  private static final LongAdder REJECTED = new LongAdder();
+
+  /**
+   * the verified logins.
+   */
+  private static final LongAdder VERIFIED = new LongAdder();
+
+  /**
+   * the total nanoseconds that the verified logins took to verify.
+   */
+  private static final LongAdder VERIFY_NANOS = new LongAdder();
+
+  /**
+   * the workers.
+   */
+  private static final ThreadPoolExecutor WORKERS = new ThreadPoolExecutor(
+    LoginWorkers.getThreadCount(),
+    LoginWorkers.getThreadCount(),
+    0L, TimeUnit.MILLISECONDS,
+    new ArrayBlockingQueue<>(Math.max(1, ServerConfig.LOGIN_QUEUE_SIZE.getValue().orElse(256))),
+    new ThreadFactoryBuilder()
+      .setNameFormat("Shiru ka Login Thread - %1$d")
+      .setDaemon(true)
+      .build(),
+    new ThreadPoolExecutor.AbortPolicy());
+
+  /**
+   * ctor.
+   */
+  private LoginWorkers() {
+  }
+
+  /**
+   * obtains the average nanoseconds that the logins waited in the queue.
+   *
+   * @return average queue wait.
+   */
+  public static long getAverageQueueWaitNanos() {
+    final var processed = LoginWorkers.VERIFIED.sum() + LoginWorkers.FAILED.sum();
+    return processed == 0L ? 0L : LoginWorkers.QUEUE_WAIT_NANOS.sum() / processed;
+  }
+
+  /**
+   * obtains the average nanoseconds that the verified logins took to verify.
+   *
+   * @return average verify time.
+   */
+  public static long getAverageVerifyNanos() {
+    final var verified = LoginWorkers.VERIFIED.sum();
+    return verified == 0L ? 0L : LoginWorkers.VERIFY_NANOS.sum() / verified;
+  }
+
+  /**
+   * obtains the logins that failed to verify.
+   *
+   * @return failed logins.
+   */
+  public static long getFailedLogins() {
+    return LoginWorkers.FAILED.sum();
+  }
+
+  /**
+   * obtains the logins that wait in the queue.
+   *
+   * @return queued logins.
+   */
+  public static int getQueuedLogins() {
+    return LoginWorkers.WORKERS.getQueue().size();
+  }
+
+  /**
+   * obtains the rejected logins.
+   *
+   * @return rejected logins.
+   */
+  public static long getRejectedLogins() {
+    return LoginWorkers.REJECTED.sum();
+  }
+
+  /**
+   * obtains the verified logins.
+   *
+   * @return verified logins.
+   */
+  public static long getVerifiedLogins() {
+    return LoginWorkers.VERIFIED.sum();
+  }
+
+  /**
+   * shutdowns the workers without waiting for the queued logins.
+   */
+  public static void shutdown() {
+    LoginWorkers.WORKERS.shutdownNow();
+  }
+
+  /**
+   * submits the given login task.
+   * <p>
+   * the task returns {@code true} if the login is verified, the logins that return {@code false} or throw are counted
+   * as failed and are left out of the average verify time.
+   *
+   * @param task the task to submit.
+   *
+   * @return {@code false} if the queue is full and the login is rejected.
+   */
+  public static boolean submit(@NotNull final BooleanSupplier task) {
+    final var queuedAt = System.nanoTime();
+    try {
+      LoginWorkers.WORKERS.execute(() -> {
+        final var start = System.nanoTime();
+        LoginWorkers.QUEUE_WAIT_NANOS.add(start - queuedAt);
+        var verified = false;
+        try {
+          verified = task.getAsBoolean();
+        } finally {
+          if (verified) {
+            LoginWorkers.VERIFY_NANOS.add(System.nanoTime() - start);
+            LoginWorkers.VERIFIED.increment();
+          } else {
+            LoginWorkers.FAILED.increment();
+          }
+        }
+      });
+      return true;
+    } catch (final RejectedExecutionException e) {
+      LoginWorkers.REJECTED.increment();
+      return false;
+    }
+  }
+
+  /**
+   * obtains the thread count from {@link ServerConfig#LOGIN_THREADS}.
+   *
+   * @return thread count.
+   */
+  private static int getThreadCount() {
+    final int threads = ServerConfig.LOGIN_THREADS.getValue().orElse(0);
+    if (threads > 0) {
+      return threads;
+    }
+    return Math.max(1, Runtime.getRuntime().availableProcessors());
+  }
+}
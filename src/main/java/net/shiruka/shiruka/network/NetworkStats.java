@@ -0,0 +1,444 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.network;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that counts the traffic of a connection or the whole server.
+ * <p>
+ * every record is also applied to the parent, so the server statistics aggregate the statistics of all connections.
+ * only the server statistics count the traffic per packet id.
+ */
+public final class NetworkStats {
+
+  /**
+   * the incoming batches.
+   */
+  private final LongAdder batchesIn = new LongAdder();
+
+  /**
+   * the outgoing batches.
+   */
+  private final LongAdder batchesOut = new LongAdder();
+
+  /**
+   * the incoming compressed bytes.
+   */
+  private final LongAdder compressedBytesIn = new LongAdder();
+
+  /**
+   * the outgoing compressed bytes.
+   */
+  private final LongAdder compressedBytesOut = new LongAdder();
+
+  /**
+   * the nanoseconds that spent on inflating and decoding.
+   */
+  private final LongAdder decodeNanos = new LongAdder();
+
+  /**
+   * the nanoseconds that spent on encoding and deflating.
+   */
+  private final LongAdder encodeNanos = new LongAdder();
+
+  /**
+   * the largest outgoing batch before compression.
+   */
+  private final AtomicLong maxBatchSize = new AtomicLong();
+
+  /**
+   * the deepest outgoing queue at flush.
+   */
+  private final AtomicLong maxQueueDepth = new AtomicLong();
+
+  /**
+   * the incoming bytes per packet id.
+   */
+  @Nullable
+  private final AtomicLongArray packetBytesIn;
+
+  /**
+   * the outgoing bytes per packet id.
+   */
+  @Nullable
+  private final AtomicLongArray packetBytesOut;
+
+  /**
+   * the incoming packets per packet id.
+   */
+  @Nullable
+  private final AtomicLongArray packetCountsIn;
+
+  /**
+   * the outgoing packets per packet id.
+   */
+  @Nullable
+  private final AtomicLongArray packetCountsOut;
+
+  /**
+   * the incoming packets.
+   */
+  private final LongAdder packetsIn = new LongAdder();
+
+  /**
+   * the outgoing packets.
+   */
+  private final LongAdder packetsOut = new LongAdder();
+
+  /**
+   * the parent.
+   */
+  @Nullable
+  private final NetworkStats parent;
+
+  /**
+   * the incoming bytes after inflating.
+   */
+  private final LongAdder rawBytesIn = new LongAdder();
+
+  /**
+   * the outgoing bytes before deflating.
+   */
+  private final LongAdder rawBytesOut = new LongAdder();
+
+  /**
+   * the outgoing queue depth at the last flush.
+   */
+  private volatile int lastQueueDepth;
+
+  /**
+   * ctor.
+   *
+   * @param parent the parent.
+   */
+  private NetworkStats(@Nullable final NetworkStats parent) {
+    this.parent = parent;
+    if (parent == null) {
+      this.packetBytesIn = new AtomicLongArray(PacketRegistry.PACKET_ID_COUNT);
+      this.packetBytesOut = new AtomicLongArray(PacketRegistry.PACKET_ID_COUNT);
+      this.packetCountsIn = new AtomicLongArray(PacketRegistry.PACKET_ID_COUNT);
+      this.packetCountsOut = new AtomicLongArray(PacketRegistry.PACKET_ID_COUNT);
+    } else {
+      this.packetBytesIn = null;
+      this.packetBytesOut = null;
+      this.packetCountsIn = null;
+      this.packetCountsOut = null;
+    }
+  }
+
+  /**
+   * creates a new statistics that counts the whole server.
+   *
+   * @return a new server statistics.
+   */
+  @NotNull
+  public static NetworkStats server() {
+    return new NetworkStats(null);
+  }
+
+  /**
+   * creates a new statistics for a connection that records to the given {@code parent} as well.
+   *
+   * @param parent the parent to create.
+   *
+   * @return a new connection statistics.
+   */
+  @NotNull
+  public static NetworkStats child(@NotNull final NetworkStats parent) {
+    return new NetworkStats(parent);
+  }
+
+  /**
+   * sets the given {@code value} if it's greater than the current value of the given {@code max}.
+   *
+   * @param max the max to update.
+   * @param value the value to set.
+   */
+  private static void updateMax(@NotNull final AtomicLong max, final long value) {
+    var current = max.get();
+    while (value > current && !max.compareAndSet(current, value)) {
+      current = max.get();
+    }
+  }
+
+  /**
+   * obtains the incoming batches.
+   *
+   * @return batches in.
+   */
+  public long getBatchesIn() {
+    return this.batchesIn.sum();
+  }
+
+  /**
+   * obtains the outgoing batches.
+   *
+   * @return batches out.
+   */
+  public long getBatchesOut() {
+    return this.batchesOut.sum();
+  }
+
+  /**
+   * obtains the incoming compressed bytes.
+   *
+   * @return compressed bytes in.
+   */
+  public long getCompressedBytesIn() {
+    return this.compressedBytesIn.sum();
+  }
+
+  /**
+   * obtains the outgoing compressed bytes.
+   *
+   * @return compressed bytes out.
+   */
+  public long getCompressedBytesOut() {
+    return this.compressedBytesOut.sum();
+  }
+
+  /**
+   * obtains the ratio of the outgoing raw bytes to the outgoing compressed bytes.
+   *
+   * @return compression ratio, or {@code 0} if nothing is sent yet.
+   */
+  public double getCompressionRatio() {
+    final var compressed = this.getCompressedBytesOut();
+    return compressed == 0L ? 0.0d : (double) this.getRawBytesOut() / compressed;
+  }
+
+  /**
+   * obtains the nanoseconds that spent on inflating and decoding.
+   *
+   * @return decode nanos.
+   */
+  public long getDecodeNanos() {
+    return this.decodeNanos.sum();
+  }
+
+  /**
+   * obtains the nanoseconds that spent on encoding and deflating.
+   *
+   * @return encode nanos.
+   */
+  public long getEncodeNanos() {
+    return this.encodeNanos.sum();
+  }
+
+  /**
+   * obtains the outgoing queue depth at the last flush.
+   *
+   * @return last queue depth.
+   */
+  public int getLastQueueDepth() {
+    return this.lastQueueDepth;
+  }
+
+  /**
+   * obtains the largest outgoing batch before compression.
+   *
+   * @return max batch size.
+   */
+  public long getMaxBatchSize() {
+    return this.maxBatchSize.get();
+  }
+
+  /**
+   * obtains the deepest outgoing queue at flush.
+   *
+   * @return max queue depth.
+   */
+  public long getMaxQueueDepth() {
+    return this.maxQueueDepth.get();
+  }
+
+  /**
+   * obtains the incoming bytes of the given {@code packetId}.
+   *
+   * @param packetId the packet id to obtain.
+   *
+   * @return packet bytes in, or {@code 0} if the statistics does not count per packet id.
+   */
+  public long getPacketBytesIn(final int packetId) {
+    return this.packetBytesIn == null ? 0L : this.packetBytesIn.get(packetId);
+  }
+
+  /**
+   * obtains the outgoing bytes of the given {@code packetId}.
+   *
+   * @param packetId the packet id to obtain.
+   *
+   * @return packet bytes out, or {@code 0} if the statistics does not count per packet id.
+   */
+  public long getPacketBytesOut(final int packetId) {
+    return this.packetBytesOut == null ? 0L : this.packetBytesOut.get(packetId);
+  }
+
+  /**
+   * obtains the incoming packets of the given {@code packetId}.
+   *
+   * @param packetId the packet id to obtain.
+   *
+   * @return packet count in, or {@code 0} if the statistics does not count per packet id.
+   */
+  public long getPacketCountIn(final int packetId) {
+    return this.packetCountsIn == null ? 0L : this.packetCountsIn.get(packetId);
+  }
+
+  /**
+   * obtains the outgoing packets of the given {@code packetId}.
+   *
+   * @param packetId the packet id to obtain.
+   *
+   * @return packet count out, or {@code 0} if the statistics does not count per packet id.
+   */
+  public long getPacketCountOut(final int packetId) {
+    return this.packetCountsOut == null ? 0L : this.packetCountsOut.get(packetId);
+  }
+
+  /**
+   * obtains the incoming packets.
+   *
+   * @return packets in.
+   */
+  public long getPacketsIn() {
+    return this.packetsIn.sum();
+  }
+
+  /**
+   * obtains the outgoing packets.
+   *
+   * @return packets out.
+   */
+  public long getPacketsOut() {
+    return this.packetsOut.sum();
+  }
+
+  /**
+   * obtains the incoming bytes after inflating.
+   *
+   * @return raw bytes in.
+   */
+  public long getRawBytesIn() {
+    return this.rawBytesIn.sum();
+  }
+
+  /**
+   * obtains the outgoing bytes before deflating.
+   *
+   * @return raw bytes out.
+   */
+  public long getRawBytesOut() {
+    return this.rawBytesOut.sum();
+  }
+
+  /**
+   * records an incoming batch.
+   *
+   * @param compressed the compressed size of the batch.
+   * @param raw the inflated size of the batch.
+   * @param nanos the nanoseconds that spent on inflating and decoding the batch.
+   */
+  public void recordBatchIn(final int compressed, final int raw, final long nanos) {
+    this.batchesIn.increment();
+    this.compressedBytesIn.add(compressed);
+    this.rawBytesIn.add(raw);
+    this.decodeNanos.add(nanos);
+    if (this.parent != null) {
+      this.parent.recordBatchIn(compressed, raw, nanos);
+    }
+  }
+
+  /**
+   * records an outgoing batch.
+   *
+   * @param raw the size of the batch before deflating.
+   * @param compressed the compressed size of the batch.
+   * @param nanos the nanoseconds that spent on encoding and deflating the batch.
+   */
+  public void recordBatchOut(final int raw, final int compressed, final long nanos) {
+    this.batchesOut.increment();
+    this.rawBytesOut.add(raw);
+    this.compressedBytesOut.add(compressed);
+    this.encodeNanos.add(nanos);
+    NetworkStats.updateMax(this.maxBatchSize, raw);
+    if (this.parent != null) {
+      this.parent.recordBatchOut(raw, compressed, nanos);
+    }
+  }
+
+  /**
+   * records an incoming packet.
+   *
+   * @param packetId the packet id to record.
+   * @param size the size of the packet.
+   */
+  public void recordPacketIn(final int packetId, final int size) {
+    this.packetsIn.increment();
+    if (this.packetCountsIn != null && this.packetBytesIn != null) {
+      this.packetCountsIn.incrementAndGet(packetId);
+      this.packetBytesIn.addAndGet(packetId, size);
+    }
+    if (this.parent != null) {
+      this.parent.recordPacketIn(packetId, size);
+    }
+  }
+
+  /**
+   * records an outgoing packet.
+   *
+   * @param packetId the packet id to record.
+   * @param size the size of the packet.
+   */
+  public void recordPacketOut(final int packetId, final int size) {
+    this.packetsOut.increment();
+    if (this.packetCountsOut != null && this.packetBytesOut != null) {
+      this.packetCountsOut.incrementAndGet(packetId);
+      this.packetBytesOut.addAndGet(packetId, size);
+    }
+    if (this.parent != null) {
+      this.parent.recordPacketOut(packetId, size);
+    }
+  }
+
+  /**
+   * records the depth of the outgoing queue at flush.
+   *
+   * @param depth the depth to record.
+   */
+  public void recordQueueDepth(final int depth) {
+    this.lastQueueDepth = depth;
+    NetworkStats.updateMax(this.maxQueueDepth, depth);
+    if (this.parent != null) {
+      this.parent.recordQueueDepth(depth);
+    }
+  }
+}
@@ -0,0 +1,547 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.network;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import net.shiruka.api.Shiruka;
+import net.shiruka.api.pack.Pack;
+import net.shiruka.shiruka.config.ServerConfig;
+import net.shiruka.shiruka.events.pack.PackTransferProgressEvent;
+import net.shiruka.shiruka.network.packets.ResourcePackChunkDataPacket;
+import net.shiruka.shiruka.network.packets.ResourcePackDataInfoPacket;
+import net.shiruka.shiruka.pack.pack.ResourcePack;
+import net.shiruka.shiruka.text.TranslatedTexts;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that schedules the resource pack chunks which are requested by the connections.
+ * <p>
+ * the scheduler runs on the server thread. it limits the total bytes per second with a token bucket, limits the
+ * downloads at the same time, and answers the downloads that are closest to completing first. a download that does
+ * not request a chunk for {@link #IDLE_TIMEOUT} gives its slot to the next waiting one. chunks are pre-encoded
+ * and compressed once, shared by every connection, and the next chunk of a download is prepared on the compression
+ * workers before it is requested.
+ */
+public final class PackTransferScheduler {
+
+  /**
+   * the total bytes per second.
+   */
+  private static final long BYTES_PER_SECOND = Math.max(0,
+    ServerConfig.PACK_TRANSFER_BYTES_PER_SECOND.getValue().orElse(8 * 1024 * 1024));
+
+  /**
+   * the maximum size of the shared chunk cache.
+   */
+  private static final long CACHE_SIZE = 64L * 1024L * 1024L;
+
+  /**
+   * the nanos that an active download can wait without requesting a chunk.
+   */
+  private static final long IDLE_TIMEOUT = TimeUnit.SECONDS.toNanos(30L);
+
+  /**
+   * the maximum downloads at the same time.
+   */
+  private static final int MAX_DOWNLOADS = Math.max(0,
+    ServerConfig.PACK_TRANSFER_MAX_DOWNLOADS.getValue().orElse(8));
+
+  /**
+   * the active transfers.
+   */
+  private final List<Transfer> active = new ObjectArrayList<>();
+
+  /**
+   * the shared chunks by their pack and chunk index, in access order.
+   */
+  private final Map<ChunkKey, CachedChunk> chunks = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * the transfers by their connections and pack ids.
+   */
+  private final Map<PlayerConnection, Map<UUID, Transfer>> transfers = new Object2ObjectOpenHashMap<>();
+
+  /**
+   * the transfers that wait for a download slot.
+   */
+  private final Queue<Transfer> waiting = new ArrayDeque<>();
+
+  /**
+   * the size of the shared chunks, including their compressed batches.
+   */
+  private long cachedBytes;
+
+  /**
+   * the last refill time.
+   */
+  private long lastRefill = System.nanoTime();
+
+  /**
+   * the bytes that can be sent.
+   */
+  private long tokens = PackTransferScheduler.BYTES_PER_SECOND;
+
+  /**
+   * obtains the active transfer count.
+   *
+   * @return active transfers.
+   */
+  public int getActiveTransfers() {
+    return this.active.size();
+  }
+
+  /**
+   * obtains the transfer count that wait for a download slot.
+   *
+   * @return waiting transfers.
+   */
+  public int getWaitingTransfers() {
+    return this.waiting.size();
+  }
+
+  /**
+   * checks if the given {@code pack} is being downloaded, or waits for a download slot.
+   *
+   * @param pack the pack to check.
+   *
+   * @return {@code true} if a connection is downloading the pack.
+   */
+  public boolean isTransferring(@NotNull final Pack pack) {
+    return this.active.stream().anyMatch(transfer -> transfer.pack == pack) ||
+      this.waiting.stream().anyMatch(transfer -> transfer.pack == pack);
+  }
+
+  /**
+   * queues the given chunk request of the given {@code connection}.
+   * <p>
+   * the chunk is sent on the next ticks when the transfer has a download slot and the bandwidth allows.
+   *
+   * @param connection the connection to request.
+   * @param pack the pack to request.
+   * @param chunkIndex the chunk index to request.
+   */
+  public void request(@NotNull final PlayerConnection connection, @NotNull final Pack pack, final int chunkIndex) {
+    final var chunkCount = ResourcePackDataInfoPacket.getChunkCount(pack.getSize());
+    if (chunkIndex < 0 || chunkIndex >= chunkCount) {
+      connection.disconnect(TranslatedTexts.RESOURCE_PACK_REASON);
+      return;
+    }
+    final var byPack = this.transfers.computeIfAbsent(connection, key -> new Object2ObjectOpenHashMap<>());
+    var transfer = byPack.get(pack.getId());
+    if (transfer == null) {
+      transfer = new Transfer(connection, pack, chunkCount);
+      byPack.put(pack.getId(), transfer);
+      this.waiting.add(transfer);
+    }
+    transfer.requested = chunkIndex;
+    transfer.lastRequest = System.nanoTime();
+  }
+
+  /**
+   * sends the requested chunks as far as the download slots and the bandwidth allow.
+   */
+  public void tick() {
+    this.refill();
+    this.removeClosed(this.active.iterator());
+    this.removeClosed(this.waiting.iterator());
+    this.removeIdle();
+    while (!this.waiting.isEmpty() &&
+      (PackTransferScheduler.MAX_DOWNLOADS == 0 || this.active.size() < PackTransferScheduler.MAX_DOWNLOADS)) {
+      this.active.add(this.waiting.poll());
+    }
+    if (this.active.isEmpty()) {
+      return;
+    }
+    this.active.sort(Comparator.comparingLong(Transfer::getRemainingBytes));
+    for (final var transfer : this.active.toArray(new Transfer[0])) {
+      if (PackTransferScheduler.BYTES_PER_SECOND > 0L && this.tokens <= 0L) {
+        break;
+      }
+      if (transfer.requested >= 0) {
+        this.send(transfer);
+      }
+    }
+  }
+
+  /**
+   * adds the given {@code bytes} of the compressed batch of the given {@code chunk} to the cached bytes.
+   *
+   * @param key the key of the chunk.
+   * @param chunk the chunk to account.
+   * @param bytes the bytes of the batch.
+   */
+  private void account(@NotNull final ChunkKey key, @NotNull final CachedChunk chunk, final int bytes) {
+    synchronized (this.chunks) {
+      if (this.chunks.get(key) != chunk) {
+        return;
+      }
+      chunk.bytes += bytes;
+      this.cachedBytes += bytes;
+      this.evict(chunk);
+    }
+  }
+
+  /**
+   * creates the packet of the given chunk.
+   *
+   * @param pack the pack to create.
+   * @param chunkIndex the chunk index to create.
+   *
+   * @return a new chunk packet.
+   */
+  @NotNull
+  private PreEncodedPacket createChunk(@NotNull final Pack pack, final int chunkIndex) {
+    final var offset = (long) ResourcePackDataInfoPacket.MAX_CHUNK_SIZE * chunkIndex;
+    final ResourcePackChunkDataPacket packet;
+    if (pack instanceof ResourcePack) {
+      final var chunk = ((ResourcePack) pack).getChunkBuffer(offset, ResourcePackDataInfoPacket.MAX_CHUNK_SIZE);
+      packet = new ResourcePackChunkDataPacket(chunkIndex, chunk, pack.getId(), pack.getVersion().toString(), offset);
+    } else {
+      final var chunk = pack.getChunk((int) offset, ResourcePackDataInfoPacket.MAX_CHUNK_SIZE);
+      packet = new ResourcePackChunkDataPacket(chunkIndex, chunk, pack.getId(), pack.getVersion().toString(), offset);
+    }
+    return PreEncodedPacket.of(packet);
+  }
+
+  /**
+   * evicts the least recently used chunks except the given {@code kept} one until the cache fits into
+   * {@link #CACHE_SIZE}.
+   * <p>
+   * the caller must hold the lock of {@link #chunks}.
+   *
+   * @param kept the chunk to keep.
+   */
+  private void evict(@NotNull final CachedChunk kept) {
+    final var iterator = this.chunks.values().iterator();
+    while (this.cachedBytes > PackTransferScheduler.CACHE_SIZE && iterator.hasNext()) {
+      final var eldest = iterator.next();
+      if (eldest == kept) {
+        continue;
+      }
+      this.cachedBytes -= eldest.bytes;
+      iterator.remove();
+    }
+  }
+
+  /**
+   * obtains the shared packet of the given chunk, creates and caches it if it's absent.
+   * <p>
+   * this method is called from the compression workers as well.
+   *
+   * @param pack the pack to obtain.
+   * @param chunkIndex the chunk index to obtain.
+   *
+   * @return the shared chunk packet.
+   */
+  @NotNull
+  private PreEncodedPacket getChunk(@NotNull final Pack pack, final int chunkIndex) {
+    final var key = new ChunkKey(pack, chunkIndex);
+    synchronized (this.chunks) {
+      final var cached = this.chunks.get(key);
+      if (cached != null) {
+        return cached.packet;
+      }
+    }
+    final var created = this.createChunk(pack, chunkIndex);
+    synchronized (this.chunks) {
+      final var cached = this.chunks.get(key);
+      if (cached != null) {
+        return cached.packet;
+      }
+      final var chunk = new CachedChunk(created);
+      this.chunks.put(key, chunk);
+      this.cachedBytes += chunk.bytes;
+      created.setBatchListener(bytes -> this.account(key, chunk, bytes));
+      this.evict(chunk);
+    }
+    return created;
+  }
+
+  /**
+   * prepares the given chunk on the compression workers, so it's ready when it's requested.
+   *
+   * @param pack the pack to prepare.
+   * @param chunkIndex the chunk index to prepare.
+   */
+  private void prepare(@NotNull final Pack pack, final int chunkIndex) {
+    try {
+      CompressionWorkers.next().execute(() -> {
+        try {
+          this.getChunk(pack, chunkIndex).getBatch();
+        } catch (final Exception e) {
+          Shiruka.getLogger().debug("§7Unable to prepare the chunk {} of {}", chunkIndex, pack.getId(), e);
+        }
+      });
+    } catch (final Exception e) {
+      Shiruka.getLogger().debug("§7Unable to prepare the chunk {} of {}", chunkIndex, pack.getId(), e);
+    }
+  }
+
+  /**
+   * refills the bytes that can be sent by the elapsed time.
+   */
+  private void refill() {
+    final var now = System.nanoTime();
+    final var elapsed = now - this.lastRefill;
+    this.lastRefill = now;
+    if (PackTransferScheduler.BYTES_PER_SECOND == 0L) {
+      return;
+    }
+    final var refilled = this.tokens + PackTransferScheduler.BYTES_PER_SECOND * elapsed / 1_000_000_000L;
+    this.tokens = Math.min(PackTransferScheduler.BYTES_PER_SECOND, refilled);
+  }
+
+  /**
+   * removes the transfers of the closed connections from the given {@code iterator}.
+   *
+   * @param iterator the iterator to remove.
+   */
+  private void removeClosed(@NotNull final Iterator<Transfer> iterator) {
+    while (iterator.hasNext()) {
+      final var transfer = iterator.next();
+      if (transfer.connection.getConnection().isDisconnected()) {
+        iterator.remove();
+        this.transfers.remove(transfer.connection);
+      }
+    }
+  }
+
+  /**
+   * removes the active transfers that have not requested a chunk for {@link #IDLE_TIMEOUT}, so the waiting transfers
+   * get their slots.
+   * <p>
+   * the connection gets a new transfer if it requests a chunk again later.
+   */
+  private void removeIdle() {
+    final var now = System.nanoTime();
+    final var iterator = this.active.iterator();
+    while (iterator.hasNext()) {
+      final var transfer = iterator.next();
+      if (transfer.requested < 0 && now - transfer.lastRequest > PackTransferScheduler.IDLE_TIMEOUT) {
+        iterator.remove();
+        this.removeTransfer(transfer);
+      }
+    }
+  }
+
+  /**
+   * removes the given {@code transfer} from {@link #transfers}.
+   *
+   * @param transfer the transfer to remove.
+   */
+  private void removeTransfer(@NotNull final Transfer transfer) {
+    final var byPack = this.transfers.get(transfer.connection);
+    if (byPack != null) {
+      byPack.remove(transfer.pack.getId());
+      if (byPack.isEmpty()) {
+        this.transfers.remove(transfer.connection);
+      }
+    }
+  }
+
+  /**
+   * sends the requested chunk of the given {@code transfer}.
+   *
+   * @param transfer the transfer to send.
+   */
+  private void send(@NotNull final Transfer transfer) {
+    final var chunkIndex = transfer.requested;
+    transfer.requested = -1;
+    final PreEncodedPacket chunk;
+    try {
+      chunk = this.getChunk(transfer.pack, chunkIndex);
+    } catch (final IllegalArgumentException | IllegalStateException e) {
+      this.active.remove(transfer);
+      this.transfers.remove(transfer.connection);
+      transfer.connection.disconnect(TranslatedTexts.RESOURCE_PACK_REASON);
+      return;
+    }
+    transfer.connection.sendPacketImmediately(chunk);
+    this.tokens -= chunk.getSize();
+    transfer.sentBytes = Math.min(transfer.totalBytes,
+      (long) ResourcePackDataInfoPacket.MAX_CHUNK_SIZE * (chunkIndex + 1));
+    Shiruka.getEventManager().call(new PackTransferProgressEvent(transfer.pack, transfer.connection.getProfile(),
+      transfer.sentBytes, transfer.totalBytes));
+    if (chunkIndex + 1 < transfer.chunkCount) {
+      this.prepare(transfer.pack, chunkIndex + 1);
+      return;
+    }
+    this.active.remove(transfer);
+    this.removeTransfer(transfer);
+  }
+
+  /**
+   * a class that represents the shared chunks and the bytes that they retain.
+   */
+  private static final class CachedChunk {
+
+    /**
+     * the packet.
+     */
+    @NotNull
+    private final PreEncodedPacket packet;
+
+    /**
+     * the retained bytes of the payload and the compressed batch.
+     */
+    private long bytes;
+
+    /**
+     * ctor.
+     *
+     * @param packet the packet.
+     */
+    private CachedChunk(@NotNull final PreEncodedPacket packet) {
+      this.packet = packet;
+      this.bytes = packet.getSize();
+    }
+  }
+
+  /**
+   * a class that represents the keys of the shared chunks.
+   * <p>
+   * the packs are compared by their identities, so a pack that is reloaded with the same id and version does not share
+   * the chunks of the replaced pack.
+   */
+  private static final class ChunkKey {
+
+    /**
+     * the chunk index.
+     */
+    private final int chunkIndex;
+
+    /**
+     * the pack.
+     */
+    @NotNull
+    private final Pack pack;
+
+    /**
+     * ctor.
+     *
+     * @param pack the pack.
+     * @param chunkIndex the chunk index.
+     */
+    private ChunkKey(@NotNull final Pack pack, final int chunkIndex) {
+      this.pack = pack;
+      this.chunkIndex = chunkIndex;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof ChunkKey)) {
+        return false;
+      }
+      final var key = (ChunkKey) obj;
+      return this.pack == key.pack && this.chunkIndex == key.chunkIndex;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(this.pack) + this.chunkIndex;
+    }
+  }
+
+  /**
+   * a class that represents the download of a pack by a connection.
+   */
+  private static final class Transfer {
+
+    /**
+     * the chunk count.
+     */
+    private final int chunkCount;
+
+    /**
+     * the connection.
+     */
+    @NotNull
+    private final PlayerConnection connection;
+
+    /**
+     * the pack.
+     */
+    @NotNull
+    private final Pack pack;
+
+    /**
+     * the total bytes.
+     */
+    private final long totalBytes;
+
+    /**
+     * the nanos of the last chunk request.
+     */
+    private long lastRequest = System.nanoTime();
+
+    /**
+     * the chunk index that is requested and not sent yet, or -1.
+     */
+    private int requested = -1;
+
+    /**
+     * the sent bytes.
+     */
+    private long sentBytes;
+
+    /**
+     * ctor.
+     *
+     * @param connection the connection.
+     * @param pack the pack.
+     * @param chunkCount the chunk count.
+     */
+    private Transfer(@NotNull final PlayerConnection connection, @NotNull final Pack pack, final int chunkCount) {
+      this.connection = connection;
+      this.pack = pack;
+      this.chunkCount = chunkCount;
+      this.totalBytes = pack.getSize();
+    }
+
+    /**
+     * obtains the remaining bytes.
+     *
+     * @return remaining bytes.
+     */
+    private long getRemainingBytes() {
+      return this.totalBytes - this.sentBytes;
+    }
+  }
+}
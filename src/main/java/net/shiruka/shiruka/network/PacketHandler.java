@@ -46,6 +46,25 @@ public interface PacketHandler extends Tick {
   default void clientCacheStatusPacket(@NotNull final ClientCacheStatusPacket packet) {
   }
 
+  /**
+   * obtains the maximum inflated size of the batches that the handler accepts.
+   *
+   * @return maximum batch size.
+   */
+  default int getMaxBatchSize() {
+    return Protocol.MAX_BATCH_SIZE;
+  }
+
+  /**
+   * obtains the state that determines which packets are decoded for the handler.
+   *
+   * @return state.
+   */
+  @NotNull
+  default PacketRegistry.State getState() {
+    return PacketRegistry.State.PLAY;
+  }
+
   /**
    * handles the login packet.
    *
@@ -25,34 +25,49 @@
 
 package net.shiruka.shiruka.network;
 
+import com.google.common.base.Preconditions;
 import io.netty.buffer.ByteBuf;
-import it.unimi.dsi.fastutil.ints.Int2ReferenceOpenHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Function;
 import net.shiruka.shiruka.network.packets.ClientCacheStatusPacket;
 import net.shiruka.shiruka.network.packets.LoginPacket;
 import net.shiruka.shiruka.network.packets.ResourcePackChunkRequestPacket;
 import net.shiruka.shiruka.network.packets.ResourcePackResponsePacket;
 import net.shiruka.shiruka.network.packets.ViolationWarningPacket;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * a class that represents packet registry.
+ * <p>
+ * the decoders are kept in a dense table that is indexed by the direction, the state and the 10 bit packet id, so
+ * looking a decoder up is a single array read.
  */
 public final class PacketRegistry {
 
   /**
-   * the packets.
+   * the packet id count, which is the size of the id part of the packet header.
    */
-  public static final Int2ReferenceOpenHashMap<Function<ByteBuf, ShirukaPacket>> PACKETS;
+  public static final int PACKET_ID_COUNT = 0x400;
+
+  /**
+   * the state count.
+   */
+  private static final int STATE_COUNT = State.values().length;
+
+  /**
+   * the decoders.
+   */
+  private static final AtomicReferenceArray<Function<ByteBuf, ShirukaPacket>> DECODERS =
+    new AtomicReferenceArray<>(Direction.values().length * PacketRegistry.STATE_COUNT * PacketRegistry.PACKET_ID_COUNT);
 
   static {
-    PACKETS = new Int2ReferenceOpenHashMap<>() {{
-      this.put(1, LoginPacket::new);
-      this.put(8, ResourcePackResponsePacket::new);
-      this.put(84, ResourcePackChunkRequestPacket::new);
-      this.put(129, ClientCacheStatusPacket::new);
-      this.put(156, ViolationWarningPacket::new);
-    }};
-    PacketRegistry.PACKETS.trim();
+    PacketRegistry.register(Direction.SERVERBOUND, 1, LoginPacket::new, State.LOGIN);
+    PacketRegistry.register(Direction.SERVERBOUND, 8, ResourcePackResponsePacket::new, State.LOGIN, State.PLAY);
+    PacketRegistry.register(Direction.SERVERBOUND, 84, ResourcePackChunkRequestPacket::new, State.LOGIN,
+      State.PLAY);
+    PacketRegistry.register(Direction.SERVERBOUND, 129, ClientCacheStatusPacket::new, State.LOGIN, State.PLAY);
+    PacketRegistry.register(Direction.SERVERBOUND, 156, ViolationWarningPacket::new, State.LOGIN, State.PLAY);
   }
 
   /**
@@ -60,4 +75,109 @@ public final class PacketRegistry {
    */
   private PacketRegistry() {
   }
+
+  /**
+   * obtains the decoder of the given {@code packetId}.
+   *
+   * @param direction the direction to obtain.
+   * @param state the state to obtain.
+   * @param packetId the packet id to obtain.
+   *
+   * @return the decoder, or {@code null} if the packet id is not registered for the given direction and state.
+   */
+  @Nullable
+  public static Function<ByteBuf, ShirukaPacket> get(@NotNull final Direction direction, @NotNull final State state,
+                                                     final int packetId) {
+    if (packetId < 0 || packetId >= PacketRegistry.PACKET_ID_COUNT) {
+      return null;
+    }
+    return PacketRegistry.DECODERS.get(PacketRegistry.index(direction, state, packetId));
+  }
+
+  /**
+   * registers the given {@code decoder} for the given {@code packetId} in the given {@code states}.
+   * <p>
+   * a decoder that is already registered for the same id is replaced, so plugins can override the built-in packets.
+   *
+   * @param direction the direction to register.
+   * @param packetId the packet id to register.
+   * @param decoder the decoder to register.
+   * @param states the states to register.
+   */
+  public static void register(@NotNull final Direction direction, final int packetId,
+                              @NotNull final Function<ByteBuf, ShirukaPacket> decoder,
+                              @NotNull final State... states) {
+    PacketRegistry.checkPacketId(packetId);
+    Preconditions.checkArgument(states.length > 0, "At least one state must be given!");
+    for (final var state : states) {
+      PacketRegistry.DECODERS.set(PacketRegistry.index(direction, state, packetId), decoder);
+    }
+  }
+
+  /**
+   * unregisters the decoder of the given {@code packetId} in the given {@code states}.
+   *
+   * @param direction the direction to unregister.
+   * @param packetId the packet id to unregister.
+   * @param states the states to unregister.
+   */
+  public static void unregister(@NotNull final Direction direction, final int packetId,
+                                @NotNull final State... states) {
+    PacketRegistry.checkPacketId(packetId);
+    for (final var state : states) {
+      PacketRegistry.DECODERS.set(PacketRegistry.index(direction, state, packetId), null);
+    }
+  }
+
+  /**
+   * checks if the given {@code packetId} fits into the packet header.
+   *
+   * @param packetId the packet id to check.
+   */
+  private static void checkPacketId(final int packetId) {
+    Preconditions.checkArgument(packetId >= 0 && packetId < PacketRegistry.PACKET_ID_COUNT,
+      "Packet id %s must be between 0 and %s!", packetId, PacketRegistry.PACKET_ID_COUNT - 1);
+  }
+
+  /**
+   * calculates the index of the given {@code packetId} in {@link #DECODERS}.
+   *
+   * @param direction the direction to calculate.
+   * @param state the state to calculate.
+   * @param packetId the packet id to calculate.
+   *
+   * @return the index.
+   */
+  private static int index(@NotNull final Direction direction, @NotNull final State state, final int packetId) {
+    return (direction.ordinal() * PacketRegistry.STATE_COUNT + state.ordinal()) * PacketRegistry.PACKET_ID_COUNT +
+      packetId;
+  }
+
+  /**
+   * an enum class to determine packet directions.
+   */
+  public enum Direction {
+    /**
+     * the packets that the server sends to the client.
+     */
+    CLIENTBOUND,
+    /**
+     * the packets that the client sends to the server.
+     */
+    SERVERBOUND
+  }
+
+  /**
+   * an enum class to determine protocol states that accept different packets.
+   */
+  public enum State {
+    /**
+     * the login and the resource pack negotiation.
+     */
+    LOGIN,
+    /**
+     * the play.
+     */
+    PLAY
+  }
 }
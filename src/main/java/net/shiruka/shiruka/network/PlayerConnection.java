@@ -30,17 +30,25 @@ import com.whirvis.jraknet.peer.RakNetClientPeer;
 import com.whirvis.jraknet.protocol.Reliability;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.util.concurrent.EventExecutor;
 import it.unimi.dsi.fastutil.PriorityQueue;
 import it.unimi.dsi.fastutil.objects.ObjectArrayFIFOQueue;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
-import java.util.zip.Deflater;
 import net.shiruka.api.Shiruka;
 import net.shiruka.api.base.GameProfile;
 import net.shiruka.api.base.Tick;
+import net.shiruka.api.events.ChainDataEvent;
 import net.shiruka.api.events.LoginResultEvent;
 import net.shiruka.api.text.ChatColor;
 import net.shiruka.api.text.Text;
@@ -49,15 +57,14 @@ import net.shiruka.shiruka.ShirukaMain;
 import net.shiruka.shiruka.ShirukaServer;
 import net.shiruka.shiruka.base.LoginData;
 import net.shiruka.shiruka.base.SimpleChainData;
-import net.shiruka.shiruka.concurrent.ShirukaTick;
 import net.shiruka.shiruka.config.ServerConfig;
 import net.shiruka.shiruka.entities.ShirukaPlayer;
 import net.shiruka.shiruka.language.Languages;
+import net.shiruka.shiruka.misc.JiraExceptionCatcher;
 import net.shiruka.shiruka.network.packets.ClientCacheStatusPacket;
 import net.shiruka.shiruka.network.packets.DisconnectPacket;
 import net.shiruka.shiruka.network.packets.LoginPacket;
 import net.shiruka.shiruka.network.packets.PlayStatusPacket;
-import net.shiruka.shiruka.network.packets.ResourcePackChunkDataPacket;
 import net.shiruka.shiruka.network.packets.ResourcePackChunkRequestPacket;
 import net.shiruka.shiruka.network.packets.ResourcePackDataInfoPacket;
 import net.shiruka.shiruka.network.packets.ResourcePackResponsePacket;
@@ -72,24 +79,35 @@ import org.jetbrains.annotations.Nullable;
 public final class PlayerConnection implements PacketHandler, Tick {
 
   /**
-   * the maximum login per tick.
+   * the maximum inflated batch size until the login packet is accepted.
    */
-  private static final int MAX_LOGIN_PER_TICK = ServerConfig.MAX_LOGIN_PER_TICK.getValue().orElse(1);
+  private static final int LOGIN_MAX_BATCH_SIZE = 2 * 1024 * 1024;
 
   /**
-   * the name pattern to check client's usernames.
+   * the reason key of the logins that time out in the login queue.
    */
-  private static final Pattern NAME_PATTERN = Pattern.compile("^[a-z\\s\\d_]{3,16}+$");
+  private static final String LOGIN_QUEUE_REASON = "shiruka.connection.login_queue";
+
+  /**
+   * the maximum incoming packets handling per tick.
+   */
+  private static final int MAX_PACKETS_PER_TICK = Math.max(1,
+    ServerConfig.MAX_PACKETS_PER_TICK.getValue().orElse(64));
 
   /**
-   * the join attempts this tick.
+   * the maximum incoming packets that can wait to handle, the connection is closed when it is exceeded.
+   */
+  private static final int MAX_QUEUED_PACKETS = 4096;
+
+  /**
+   * the name pattern to check client's usernames.
    */
-  private static int joinAttemptsThisTick;
+  private static final Pattern NAME_PATTERN = Pattern.compile("^[a-z\\s\\d_]{3,16}+$");
 
   /**
-   * the old tick.
+   * the maximum inflated batch size while resource packs are negotiated.
    */
-  private static int oldTick;
+  private static final int PACK_MAX_BATCH_SIZE = 64 * 1024;
 
   /**
    * the login listener.
@@ -102,6 +120,22 @@ public final class PlayerConnection implements PacketHandler, Tick {
   @NotNull
   private final RakNetClientPeer connection;
 
+  /**
+   * the incoming packet count.
+   */
+  private final AtomicInteger incomingPacketCount = new AtomicInteger();
+
+  /**
+   * the incoming packets that are decoded by the network threads and wait to handle in the tick.
+   */
+  private final Queue<ShirukaPacket> incomingPackets = new ConcurrentLinkedQueue<>();
+
+  /**
+   * the network stats.
+   */
+  @NotNull
+  private final NetworkStats networkStats;
+
   /**
    * the packet handler.
    */
@@ -112,12 +146,23 @@ public final class PlayerConnection implements PacketHandler, Tick {
    */
   private final PriorityQueue<ShirukaPacket> queuedPackets = new ObjectArrayFIFOQueue<>();
 
+  /**
+   * the rejected, which is set when the {@link #worker} rejects a batch and the connection is disconnected.
+   */
+  private final AtomicBoolean rejected = new AtomicBoolean();
+
   /**
    * the server.
    */
   @NotNull
   private final ShirukaServer server;
 
+  /**
+   * the worker that encodes, compresses and sends the batches of the connection in order.
+   */
+  @NotNull
+  private final EventExecutor worker = CompressionWorkers.next();
+
   /**
    * the blob cache support.
    */
@@ -144,6 +189,7 @@ public final class PlayerConnection implements PacketHandler, Tick {
   public PlayerConnection(@NotNull final RakNetClientPeer connection, @NotNull final ShirukaServer server) {
     this.connection = connection;
     this.server = server;
+    this.networkStats = NetworkStats.child(server.getNetworkStats());
   }
 
   @Override
@@ -161,24 +207,16 @@ public final class PlayerConnection implements PacketHandler, Tick {
       this.disconnect(TranslatedTexts.RESOURCE_PACK_REASON.asString());
       return;
     }
-    final var pack = resourcePack.get();
-    final var chunk = pack.getChunk(1048576 * chunkSize, 1048576);
-    final var send = new ResourcePackChunkDataPacket(chunkSize, chunk, packId, version, 1048576L * chunkSize);
-    this.sendPacket(send);
+    this.server.getPackTransferScheduler().request(this, resourcePack.get(), chunkSize);
   }
 
   @Override
   public void tick() {
     if (this.connection.isConnected() && Shiruka.isPrimaryThread()) {
-      this.handleQueuedPackets();
-    }
-    if (PlayerConnection.oldTick != ShirukaTick.currentTick) {
-      PlayerConnection.oldTick = ShirukaTick.currentTick;
-      PlayerConnection.joinAttemptsThisTick = 0;
+      this.handleIncomingPackets();
     }
     final var handler = this.packetHandler.get();
-    if (handler instanceof LoginListener &&
-      PlayerConnection.joinAttemptsThisTick++ < PlayerConnection.MAX_LOGIN_PER_TICK) {
+    if (handler instanceof LoginListener) {
       handler.tick();
     }
     if (handler instanceof PlayerConnection) {
@@ -232,6 +270,25 @@ public final class PlayerConnection implements PacketHandler, Tick {
     return this.connection;
   }
 
+  /**
+   * obtains the count of the incoming packets that wait to handle.
+   *
+   * @return incoming queue depth.
+   */
+  public int getIncomingQueueDepth() {
+    return this.incomingPacketCount.get();
+  }
+
+  /**
+   * obtains the network stats.
+   *
+   * @return network stats.
+   */
+  @NotNull
+  public NetworkStats getNetworkStats() {
+    return this.networkStats;
+  }
+
   /**
    * obtains the packet handler.
    *
@@ -261,6 +318,16 @@ public final class PlayerConnection implements PacketHandler, Tick {
     return this.player;
   }
 
+  /**
+   * obtains the profile.
+   *
+   * @return profile, or {@code null} if the login has not verified the connection yet.
+   */
+  @Nullable
+  public GameProfile getProfile() {
+    return this.profile;
+  }
+
   /**
    * obtains the server.
    *
@@ -272,28 +339,53 @@ public final class PlayerConnection implements PacketHandler, Tick {
   }
 
   /**
-   * polls all packets in {@link #queuedPackets} and handles them.
+   * polls all packets in {@link #queuedPackets}, encodes and compresses them on the calling thread and hands the
+   * batches to the {@link #worker} to send in order.
+   * <p>
+   * {@link ConnectionWorkers} calls this method after the tick on a fork-join worker while the server thread waits for
+   * it, so the connections are encoded and compressed in parallel.
    */
-  public void handleQueuedPackets() {
-    if (this.queuedPackets.isEmpty()) {
+  public void flushQueuedPackets() {
+    final var packets = this.pollQueuedPackets();
+    if (packets.isEmpty()) {
       return;
     }
-    var toBatch = new ObjectArrayList<ShirukaPacket>();
-    while (!this.queuedPackets.isEmpty()) {
-      final var packet = this.queuedPackets.dequeue();
-      if (!packet.getClass().isAnnotationPresent(NoEncryption.class)) {
-        toBatch.add(packet);
-        continue;
+    final var batches = new ObjectArrayList<ByteBuf>();
+    this.forEachBatch(packets, group -> {
+      final var batch = this.encode(group);
+      if (batch != null) {
+        batches.add(batch);
       }
-      if (!toBatch.isEmpty()) {
-        this.sendWrapped(toBatch);
-        toBatch = new ObjectArrayList<>();
-      }
-      this.sendWrapped(Collections.singleton(packet));
+    });
+    this.submit(() -> batches.forEach(this::send));
+  }
+
+  /**
+   * polls all packets in {@link #queuedPackets} and hands them to the {@link #worker} to encode, compress and send.
+   * <p>
+   * {@link ConnectionWorkers} calls this method after the tick on the server thread when the connections are not
+   * flushed in parallel.
+   */
+  public void handleQueuedPackets() {
+    final var packets = this.pollQueuedPackets();
+    if (!packets.isEmpty()) {
+      this.submit(() -> this.forEachBatch(packets, this::sendWrapped));
     }
-    if (!toBatch.isEmpty()) {
-      this.sendWrapped(toBatch);
+  }
+
+  /**
+   * queues the given decoded {@code packet} to handle in the next tick.
+   * <p>
+   * this method is thread-safe and called by the network threads.
+   *
+   * @param packet the packet to receive.
+   */
+  public void receivePacket(@NotNull final ShirukaPacket packet) {
+    if (this.incomingPacketCount.incrementAndGet() > PlayerConnection.MAX_QUEUED_PACKETS) {
+      this.incomingPacketCount.decrementAndGet();
+      return;
     }
+    this.incomingPackets.add(packet);
   }
 
   /**
@@ -322,7 +414,7 @@ public final class PlayerConnection implements PacketHandler, Tick {
    * @param packet the packet to send.
    */
   public void sendPacketImmediately(@NotNull final ShirukaPacket packet) {
-    this.sendWrapped(Collections.singleton(packet));
+    this.submit(() -> this.sendWrapped(Collections.singleton(packet)));
   }
 
   /**
@@ -332,32 +424,163 @@ public final class PlayerConnection implements PacketHandler, Tick {
   }
 
   /**
-   * sends the wrapped packets to the connection.
+   * handles the incoming packets up to {@link #MAX_PACKETS_PER_TICK}.
+   * <p>
+   * the connection is closed if the client sends packets faster than they can be handled.
+   */
+  private void handleIncomingPackets() {
+    if (this.incomingPacketCount.get() >= PlayerConnection.MAX_QUEUED_PACKETS) {
+      this.incomingPackets.clear();
+      this.incomingPacketCount.set(0);
+      this.disconnect(TranslatedTexts.TOO_MANY_PACKETS_REASON);
+      return;
+    }
+    for (var index = 0; index < PlayerConnection.MAX_PACKETS_PER_TICK; index++) {
+      final var packet = this.incomingPackets.poll();
+      if (packet == null) {
+        break;
+      }
+      this.incomingPacketCount.decrementAndGet();
+      try {
+        packet.handle(this.packetHandler.get());
+      } catch (final Exception e) {
+        JiraExceptionCatcher.serverException(e);
+      }
+    }
+  }
+
+  /**
+   * encodes and compresses the given {@code packets} into a batch which is prefixed with its header.
+   * <p>
+   * a single {@link PreEncodedPacket} is encoded as its shared compressed batch. RakNet keeps a reference to the sent
+   * buffer for resends and never releases it, so the other batches are returned as exactly sized unpooled copies of
+   * the pooled buffers.
    *
-   * @param packets the packets to send.
+   * @param packets the packets to encode.
+   *
+   * @return the batch to send, or {@code null} if the packets could not be encoded.
    */
-  private void sendWrapped(@NotNull final Collection<ShirukaPacket> packets) {
-    final var compressed = Unpooled.buffer();
+  @Nullable
+  private ByteBuf encode(@NotNull final Collection<ShirukaPacket> packets) {
+    if (packets.size() == 1) {
+      final var packet = packets.iterator().next();
+      if (packet instanceof PreEncodedPacket) {
+        final var preEncoded = (PreEncodedPacket) packet;
+        try {
+          final var batch = preEncoded.getBatch();
+          this.networkStats.recordPacketOut(preEncoded.getId() & 0x3ff, preEncoded.getSize());
+          this.networkStats.recordBatchOut(preEncoded.getSize(), batch.readableBytes() - 1, 0L);
+          return batch;
+        } catch (final Exception e) {
+          Shiruka.getLogger().error("Unable to compress packets", e);
+          return null;
+        }
+      }
+    }
+    final var batch = Protocol.ALLOCATOR.directBuffer();
     try {
-      Protocol.serialize(compressed, packets, Deflater.DEFAULT_COMPRESSION);
-      this.sendWrapped(compressed);
+      batch.writeByte(0xfe);
+      Protocol.serialize(batch, packets, this.networkStats);
+      return Unpooled.copiedBuffer(batch);
     } catch (final Exception e) {
       Shiruka.getLogger().error("Unable to compress packets", e);
+      return null;
     } finally {
-      compressed.release();
+      batch.release();
+    }
+  }
+
+  /**
+   * splits the given {@code packets} into the groups that are sent in a single batch.
+   * <p>
+   * the packets which are annotated with {@link NoEncryption} are sent in their own batches.
+   *
+   * @param packets the packets to split.
+   * @param consumer the consumer to accept the groups in order.
+   */
+  private void forEachBatch(@NotNull final Collection<ShirukaPacket> packets,
+                            @NotNull final Consumer<Collection<ShirukaPacket>> consumer) {
+    var toBatch = new ObjectArrayList<ShirukaPacket>();
+    for (final var packet : packets) {
+      if (!packet.getPacketClass().isAnnotationPresent(NoEncryption.class)) {
+        toBatch.add(packet);
+        continue;
+      }
+      if (!toBatch.isEmpty()) {
+        consumer.accept(toBatch);
+        toBatch = new ObjectArrayList<>();
+      }
+      consumer.accept(Collections.singleton(packet));
+    }
+    if (!toBatch.isEmpty()) {
+      consumer.accept(toBatch);
+    }
+  }
+
+  /**
+   * polls all packets in {@link #queuedPackets}.
+   *
+   * @return the polled packets in order.
+   */
+  @NotNull
+  private List<ShirukaPacket> pollQueuedPackets() {
+    if (this.queuedPackets.isEmpty()) {
+      return Collections.emptyList();
     }
+    this.networkStats.recordQueueDepth(this.queuedPackets.size());
+    final var packets = new ObjectArrayList<ShirukaPacket>(this.queuedPackets.size());
+    while (!this.queuedPackets.isEmpty()) {
+      packets.add(this.queuedPackets.dequeue());
+    }
+    return packets;
   }
 
   /**
-   * sends the given compressed packet to the connection.
+   * sends the given batch, which is already prefixed with its header, to the connection.
    *
-   * @param compressed the compressed packet to send.
+   * @param batch the batch to send.
    */
-  private synchronized void sendWrapped(@NotNull final ByteBuf compressed) {
-    final var packet = Unpooled.buffer(compressed.readableBytes() + 9);
-    packet.writeByte(0xfe);
-    packet.writeBytes(compressed);
-    this.connection.sendMessage(Reliability.RELIABLE_ORDERED, packet);
+  private synchronized void send(@NotNull final ByteBuf batch) {
+    this.connection.sendMessage(Reliability.RELIABLE_ORDERED, batch);
+  }
+
+  /**
+   * encodes, compresses and sends the given {@code packets} in a single batch.
+   *
+   * @param packets the packets to send.
+   */
+  private void sendWrapped(@NotNull final Collection<ShirukaPacket> packets) {
+    final var batch = this.encode(packets);
+    if (batch != null) {
+      this.send(batch);
+    }
+  }
+
+  /**
+   * submits the given {@code task} to the {@link #worker}.
+   * <p>
+   * the batches are ordered game traffic, so they are never dropped on their own. if the worker is saturated, the
+   * connection is disconnected with {@link TranslatedTexts#SERVER_BUSY_REASON} on the calling thread instead, and the
+   * later tasks are ignored.
+   *
+   * @param task the task to submit.
+   */
+  private void submit(@NotNull final Runnable task) {
+    if (this.rejected.get()) {
+      return;
+    }
+    try {
+      this.worker.execute(task);
+    } catch (final RejectedExecutionException e) {
+      if (!this.rejected.compareAndSet(false, true)) {
+        return;
+      }
+      Shiruka.getLogger().warn("Compression workers are saturated, disconnecting {}",
+        this.connection.getAddress());
+      final var message = this.translate0(TranslatedTexts.SERVER_BUSY_REASON, TranslatedTexts.DISCONNECTED_NO_REASON)
+        .asString();
+      this.sendWrapped(Collections.singleton(new DisconnectPacket(message, false)));
+    }
   }
 
   /**
@@ -446,11 +669,29 @@ public final class PlayerConnection implements PacketHandler, Tick {
      */
     private int loginTimeoutCounter;
 
+    @Override
+    public int getMaxBatchSize() {
+      return this.loginData == null
+        ? PlayerConnection.LOGIN_MAX_BATCH_SIZE
+        : PlayerConnection.PACK_MAX_BATCH_SIZE;
+    }
+
+    @NotNull
+    @Override
+    public PacketRegistry.State getState() {
+      return PacketRegistry.State.LOGIN;
+    }
+
     @Override
     public void loginPacket(@NotNull final LoginPacket packet) {
       this.latestLoginPacket = packet;
     }
 
+    @Override
+    public void resourcePackChunkRequestPacket(@NotNull final ResourcePackChunkRequestPacket packet) {
+      PlayerConnection.this.resourcePackChunkRequestPacket(packet);
+    }
+
     @Override
     public void resourcePackResponsePacket(@NotNull final ResourcePackResponsePacket packet) {
       this.latestResourcePacket = packet;
@@ -464,7 +705,12 @@ public final class PlayerConnection implements PacketHandler, Tick {
       }
       if (this.wantsToJoin == null) {
         if (this.latestLoginPacket != null) {
-          this.loginPacket0(this.latestLoginPacket);
+          final var admission = PlayerConnection.this.server.getLoginAdmission();
+          if (admission.poll(PlayerConnection.this)) {
+            this.loginPacket0(this.latestLoginPacket);
+          } else {
+            admission.enqueue(PlayerConnection.this);
+          }
         }
         if (this.latestResourcePacket != null) {
           this.resourcePackResponsePacket0(this.latestResourcePacket);
@@ -477,7 +723,15 @@ public final class PlayerConnection implements PacketHandler, Tick {
         }
       }
       if (this.loginTimeoutCounter++ >= 600) {
-        PlayerConnection.this.disconnect(TranslatedTexts.SLOW_LOGIN_REASON);
+        final var admission = PlayerConnection.this.server.getLoginAdmission();
+        final var position = admission.getPosition(PlayerConnection.this);
+        admission.remove(PlayerConnection.this);
+        if (position > 0) {
+          PlayerConnection.this.disconnect(TranslatedText.get(PlayerConnection.LOGIN_QUEUE_REASON, position,
+            admission.getPendingLogins() + 1));
+        } else {
+          PlayerConnection.this.disconnect(TranslatedTexts.SLOW_LOGIN_REASON);
+        }
       }
     }
 
@@ -505,8 +759,17 @@ public final class PlayerConnection implements PacketHandler, Tick {
         PlayerConnection.this.sendPacket(new PlayStatusPacket(PlayStatusPacket.Status.LOGIN_FAILED_SERVER_OLD));
         return;
       }
-      Shiruka.getScheduler().scheduleAsync(ShirukaServer.INTERNAL_PLUGIN, () -> {
-        final var chainData = SimpleChainData.create(encodedChainData, encodedSkinData);
+      final var submitted = LoginWorkers.submit(() -> {
+        final ChainDataEvent.ChainData chainData;
+        try {
+          chainData = SimpleChainData.create(encodedChainData, encodedSkinData);
+          // decodes the skin here, so the server thread does not decode it when it validates the skin.
+          chainData.getSkin();
+        } catch (final Exception e) {
+          Shiruka.getScheduler().schedule(ShirukaServer.INTERNAL_PLUGIN, () ->
+            PlayerConnection.this.disconnect(TranslatedTexts.LOGIN_ERROR));
+          return false;
+        }
         Shiruka.getScheduler().schedule(ShirukaServer.INTERNAL_PLUGIN, () -> {
           Languages.addLoadedLanguage(chainData.getLanguageCode());
           if (!chainData.getXboxAuthed() && ServerConfig.ONLINE_MODE.getValue().orElse(true)) {
@@ -557,7 +820,11 @@ public final class PlayerConnection implements PacketHandler, Tick {
             PlayerConnection.this.sendPacket((ShirukaPacket) packInfo);
           }
         });
+        return true;
       });
+      if (!submitted) {
+        PlayerConnection.this.disconnect(TranslatedTexts.SERVER_BUSY_REASON);
+      }
     }
 
     /**
@@ -566,6 +833,7 @@ public final class PlayerConnection implements PacketHandler, Tick {
      * @param packet the packet to handle.
      */
     private void resourcePackResponsePacket0(@NotNull final ResourcePackResponsePacket packet) {
+      this.latestResourcePacket = null;
       final var status = packet.getStatus();
       final var packs = packet.getPacks();
       final var packManager = Shiruka.getPackManager();
@@ -577,6 +845,8 @@ public final class PlayerConnection implements PacketHandler, Tick {
           break;
         case COMPLETED:
           if (this.loginData == null) {
+            // the login is still being verified, so handle the packet again on the next tick.
+            this.latestResourcePacket = packet;
             return;
           }
           if (this.loginData.getTask() != null &&
@@ -0,0 +1,202 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.Collections;
+import java.util.function.IntConsumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents packets which are encoded once and shared by every connection that sends them.
+ * <p>
+ * the encoded bytes never change, so broadcasting the packet to many connections costs one encode, and sending it
+ * alone costs one compression.
+ */
+public final class PreEncodedPacket extends ShirukaPacket {
+
+  /**
+   * the offset of the body in the {@link #payload}, which is the size of the header.
+   */
+  private final int bodyOffset;
+
+  /**
+   * the class of the encoded packet.
+   */
+  @NotNull
+  private final Class<? extends ShirukaPacket> packetClass;
+
+  /**
+   * the header and the body of the encoded packet.
+   */
+  private final byte[] payload;
+
+  /**
+   * the compressed batch that contains only the packet, which is created on the first use.
+   */
+  @Nullable
+  private volatile byte[] batch;
+
+  /**
+   * the listener that is notified with the size of the batch when it is created.
+   */
+  @Nullable
+  private volatile IntConsumer batchListener;
+
+  /**
+   * ctor.
+   *
+   * @param id the id.
+   * @param packetClass the packet class.
+   * @param payload the payload.
+   * @param bodyOffset the body offset.
+   */
+  private PreEncodedPacket(final int id, @NotNull final Class<? extends ShirukaPacket> packetClass,
+                           final byte[] payload, final int bodyOffset) {
+    super(id);
+    this.packetClass = packetClass;
+    this.payload = payload;
+    this.bodyOffset = bodyOffset;
+  }
+
+  /**
+   * encodes the given {@code packet} once.
+   *
+   * @param packet the packet to encode.
+   *
+   * @return a pre-encoded packet instance.
+   */
+  @NotNull
+  public static PreEncodedPacket of(@NotNull final ShirukaPacket packet) {
+    if (packet instanceof PreEncodedPacket) {
+      return (PreEncodedPacket) packet;
+    }
+    final var buffer = Protocol.ALLOCATOR.directBuffer();
+    try {
+      Protocol.encodePayload(buffer, packet);
+      final var payload = new byte[buffer.readableBytes()];
+      buffer.getBytes(buffer.readerIndex(), payload);
+      VarInts.readUnsignedVarInt(buffer);
+      final var bodyOffset = payload.length - buffer.readableBytes();
+      final var preEncoded = new PreEncodedPacket(packet.getId(), packet.getPacketClass(), payload, bodyOffset);
+      preEncoded.setSenderId(packet.getSenderId());
+      preEncoded.setClientId(packet.getClientId());
+      return preEncoded;
+    } finally {
+      buffer.release();
+    }
+  }
+
+  @Override
+  public void encode() {
+    this.buffer().writeBytes(this.payload, this.bodyOffset, this.payload.length - this.bodyOffset);
+  }
+
+  @NotNull
+  @Override
+  public Class<? extends ShirukaPacket> getPacketClass() {
+    return this.packetClass;
+  }
+
+  /**
+   * obtains the size of the header and the body of the encoded packet.
+   *
+   * @return size.
+   */
+  public int getSize() {
+    return this.payload.length;
+  }
+
+  /**
+   * obtains the compressed batch, which is prefixed with its header, that contains only the packet.
+   *
+   * @return a new buffer that wraps the shared batch.
+   */
+  @NotNull
+  ByteBuf getBatch() {
+    var batch = this.batch;
+    var created = false;
+    if (batch == null) {
+      synchronized (this) {
+        batch = this.batch;
+        if (batch == null) {
+          this.batch = batch = this.compress();
+          created = true;
+        }
+      }
+    }
+    final var listener = this.batchListener;
+    if (created && listener != null) {
+      listener.accept(batch.length);
+    }
+    return Unpooled.wrappedBuffer(batch);
+  }
+
+  /**
+   * sets the listener that is notified with the size of the batch when it is created.
+   * <p>
+   * caches use it to account the memory that the batch retains in addition to the payload.
+   *
+   * @param batchListener the batch listener to set.
+   */
+  void setBatchListener(@Nullable final IntConsumer batchListener) {
+    this.batchListener = batchListener;
+  }
+
+  /**
+   * appends the packet with its length prefix into the given {@code batch}.
+   *
+   * @param batch the batch to append.
+   */
+  void writeTo(@NotNull final ByteBuf batch) {
+    VarInts.writeUnsignedInt(batch, this.payload.length);
+    batch.writeBytes(this.payload);
+  }
+
+  /**
+   * compresses the packet as a batch.
+   *
+   * @return compressed batch.
+   */
+  private byte[] compress() {
+    final var uncompressed = Protocol.ALLOCATOR.directBuffer(this.payload.length + 5);
+    final var compressed = Protocol.ALLOCATOR.directBuffer();
+    try {
+      this.writeTo(uncompressed);
+      final var level = BatchCompression.getLevel(Collections.singleton(this), uncompressed.readableBytes());
+      compressed.writeByte(0xfe);
+      Zlib.RAW.deflate(uncompressed, compressed, level);
+      final var batch = new byte[compressed.readableBytes()];
+      compressed.readBytes(batch);
+      return batch;
+    } finally {
+      uncompressed.release();
+      compressed.release();
+    }
+  }
+}
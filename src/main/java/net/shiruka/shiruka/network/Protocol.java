@@ -26,9 +26,10 @@
 package net.shiruka.shiruka.network;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
 import java.util.Collection;
-import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.zip.DataFormatException;
 import net.shiruka.shiruka.misc.JiraExceptionCatcher;
 import org.apache.logging.log4j.LogManager;
@@ -40,11 +41,38 @@ import org.jetbrains.annotations.NotNull;
  */
 public final class Protocol {
 
+  /**
+   * the maximum inflated size of a batch.
+   */
+  public static final int MAX_BATCH_SIZE = 12 * 1024 * 1024;
+
+  /**
+   * the width of the length prefix that is reserved before each packet in a batch.
+   * <p>
+   * 4 bytes hold lengths up to 2^28 which is larger than {@link #MAX_BATCH_SIZE}.
+   */
+  static final int LENGTH_PREFIX_SIZE = 4;
+
+  /**
+   * the allocator that allocates buffers of the network path.
+   */
+  static final ByteBufAllocator ALLOCATOR = PooledByteBufAllocator.DEFAULT;
+
   /**
    * the logger.
    */
   private static final Logger LOGGER = LogManager.getLogger();
 
+  /**
+   * the level that makes {@link BatchCompression} determine the compression level.
+   */
+  private static final int POLICY_LEVEL = Integer.MIN_VALUE;
+
+  /**
+   * the initial size of the window that batches are inflated into.
+   */
+  private static final int WINDOW_SIZE = 64 * 1024;
+
   /**
    * the zlib.
    */
@@ -58,70 +86,184 @@ public final class Protocol {
 
   /**
    * deserializes the given {@code compressed}.
+   * <p>
+   * the batch is inflated into a bounded window and each packet is decoded and passed to the given {@code consumer} as
+   * soon as it is complete. only the packets that are registered for the {@code handler}'s state are decoded, and
+   * batches that exceed {@link PacketHandler#getMaxBatchSize()} of the {@code handler} are refused.
+   * <p>
+   * the state is read on the network thread while the server thread switches it, so a batch that arrives during the
+   * switch from {@link PacketRegistry.State#LOGIN} to {@link PacketRegistry.State#PLAY} is decoded against both tables.
+   * the decoded packets are handled on the server thread by the handler of that time, which ignores the packets that
+   * it does not expect.
    *
-   * @param handler the handler to handle.
    * @param compressed the compressed to deserialize.
+   * @param handler the handler that determines the state and the maximum inflated size of the batch.
+   * @param stats the stats to record.
+   * @param consumer the consumer to accept decoded packets.
    */
-  public static void deserialize(@NotNull final PacketHandler handler, @NotNull final ByteBuf compressed) {
-    ByteBuf decompressed = null;
+  public static void deserialize(@NotNull final ByteBuf compressed, @NotNull final PacketHandler handler,
+                                 @NotNull final NetworkStats stats, @NotNull final Consumer<ShirukaPacket> consumer) {
+    final var start = System.nanoTime();
+    final var maxSize = handler.getMaxBatchSize();
+    final var state = handler.getState();
+    final var size = compressed.readableBytes();
+    final var window = Protocol.ALLOCATOR.directBuffer(Math.min(Protocol.WINDOW_SIZE, maxSize));
     try {
-      decompressed = Protocol.ZLIB.inflate(compressed, 12 * 1024 * 1024);
-      while (decompressed.isReadable()) {
-        final var length = VarInts.readUnsignedVarInt(decompressed);
-        final var buffer = decompressed.readSlice(length);
-        if (!buffer.isReadable()) {
-          throw new DataFormatException("Packet cannot be empty!");
-        }
-        final var header = VarInts.readUnsignedVarInt(buffer);
-        final var packetId = header & 0x3ff;
-        Protocol.LOGGER.debug("§7Incoming packet id -> {}", packetId);
-        final var shirukaPacket = Objects.requireNonNull(PacketRegistry.PACKETS.get(packetId),
-          String.format("The packet id %s not found!", packetId)).apply(buffer);
-        shirukaPacket.setSenderId(header >>> 10 & 3);
-        shirukaPacket.setClientId(header >>> 12 & 3);
-        shirukaPacket.decode();
-        shirukaPacket.handle(handler);
+      if (compressed.readableBytes() > Zlib.deflateBound(maxSize)) {
+        throw new DataFormatException("Compressed data exceeds maximum size!");
+      }
+      final var raw = Protocol.ZLIB.inflate(compressed, maxSize, window,
+        buffer -> Protocol.decode(buffer, state, stats, consumer));
+      if (window.isReadable()) {
+        throw new DataFormatException("Batch ends with an incomplete packet!");
       }
+      stats.recordBatchIn(size, raw, System.nanoTime() - start);
+    } catch (final DataFormatException e) {
+      Protocol.LOGGER.debug("§7Refused a batch of {} bytes -> {}", size, e.getMessage());
     } catch (final Exception e) {
       JiraExceptionCatcher.serverException(e);
     } finally {
-      if (decompressed != null) {
-        decompressed.release();
-      }
+      window.release();
     }
   }
 
+  /**
+   * serializes the given {@code packet} with the level that {@link BatchCompression} determines.
+   *
+   * @param result the result.
+   * @param packets the packets to serialize.
+   * @param stats the stats to record.
+   *
+   * @see #serialize(ByteBuf, Collection, int, NetworkStats)
+   */
+  public static void serialize(@NotNull final ByteBuf result, @NotNull final Collection<ShirukaPacket> packets,
+                               @NotNull final NetworkStats stats) {
+    Protocol.serialize(result, packets, Protocol.POLICY_LEVEL, stats);
+  }
+
   /**
    * serializes the given {@code packet}.
+   * <p>
+   * the compressed batch is written after the {@code result}'s current writer index, so callers can write the batch
+   * header in-place before serializing.
    *
    * @param result the result.
    * @param packets the packets to serialize.
    * @param level the level to serialize.
+   * @param stats the stats to record.
    */
   public static void serialize(@NotNull final ByteBuf result, @NotNull final Collection<ShirukaPacket> packets,
-                               final int level) {
-    final var uncompressed = Unpooled.buffer(packets.size() << 3);
+                               final int level, @NotNull final NetworkStats stats) {
+    final var start = System.nanoTime();
+    final var index = result.writerIndex();
+    final var uncompressed = Protocol.ALLOCATOR.directBuffer(packets.size() << 3);
     try {
       for (final var packet : packets) {
-        final var buffer = Unpooled.buffer();
-        try {
-          final var packetId = packet.getId();
-          var header = 0;
-          header |= packetId & 0x3ff;
-          header |= (packet.getSenderId() & 3) << 10;
-          header |= (packet.getClientId() & 3) << 12;
-          VarInts.writeUnsignedInt(buffer, header);
-          packet.setBuffer(buffer);
-          packet.encode();
-          VarInts.writeUnsignedInt(uncompressed, buffer.readableBytes());
-          uncompressed.writeBytes(buffer);
-        } finally {
-          buffer.release();
-        }
+        Protocol.encode(uncompressed, packet, stats);
       }
-      Protocol.ZLIB.deflate(uncompressed, result, level);
+      final var finalLevel = level == Protocol.POLICY_LEVEL
+        ? BatchCompression.getLevel(packets, uncompressed.readableBytes())
+        : level;
+      final var raw = uncompressed.readableBytes();
+      Protocol.ZLIB.deflate(uncompressed, result, finalLevel);
+      stats.recordBatchOut(raw, result.writerIndex() - index, System.nanoTime() - start);
     } finally {
       uncompressed.release();
     }
   }
+
+  /**
+   * encodes the header and the body of the given {@code packet} into the given {@code buffer}.
+   *
+   * @param buffer the buffer to encode.
+   * @param packet the packet to encode.
+   */
+  static void encodePayload(@NotNull final ByteBuf buffer, @NotNull final ShirukaPacket packet) {
+    var header = 0;
+    header |= packet.getId() & 0x3ff;
+    header |= (packet.getSenderId() & 3) << 10;
+    header |= (packet.getClientId() & 3) << 12;
+    VarInts.writeUnsignedInt(buffer, header);
+    // packets may be shared between connections whose batches are encoded on different workers.
+    synchronized (packet) {
+      packet.setBuffer(buffer);
+      packet.encode();
+    }
+  }
+
+  /**
+   * decodes the complete packets in the given {@code window} and discards them.
+   *
+   * @param window the window to decode.
+   * @param state the state to decode.
+   * @param stats the stats to record.
+   * @param consumer the consumer to accept decoded packets.
+   *
+   * @throws DataFormatException if a packet is empty.
+   */
+  private static void decode(@NotNull final ByteBuf window, @NotNull final PacketRegistry.State state,
+                             @NotNull final NetworkStats stats, @NotNull final Consumer<ShirukaPacket> consumer)
+    throws DataFormatException {
+    while (VarInts.hasUnsignedVarInt(window)) {
+      final var start = window.readerIndex();
+      final var length = VarInts.readUnsignedVarInt(window);
+      if (window.readableBytes() < length) {
+        window.readerIndex(start);
+        break;
+      }
+      final var buffer = window.readSlice(length);
+      if (!buffer.isReadable()) {
+        throw new DataFormatException("Packet cannot be empty!");
+      }
+      final var header = VarInts.readUnsignedVarInt(buffer);
+      final var packetId = header & 0x3ff;
+      stats.recordPacketIn(packetId, length);
+      var decoder = PacketRegistry.get(PacketRegistry.Direction.SERVERBOUND, state, packetId);
+      if (decoder == null && state == PacketRegistry.State.LOGIN) {
+        decoder = PacketRegistry.get(PacketRegistry.Direction.SERVERBOUND, PacketRegistry.State.PLAY, packetId);
+      }
+      if (decoder == null) {
+        if (Protocol.LOGGER.isDebugEnabled()) {
+          Protocol.LOGGER.debug("§7Skipped unknown packet id -> {} in {}", packetId, state);
+        }
+        continue;
+      }
+      if (Protocol.LOGGER.isDebugEnabled()) {
+        Protocol.LOGGER.debug("§7Incoming packet id -> {}", packetId);
+      }
+      final var shirukaPacket = decoder.apply(buffer);
+      shirukaPacket.setSenderId(header >>> 10 & 3);
+      shirukaPacket.setClientId(header >>> 12 & 3);
+      shirukaPacket.decode();
+      consumer.accept(shirukaPacket);
+    }
+    window.discardReadBytes();
+  }
+
+  /**
+   * encodes the given {@code packet} and appends it with its length prefix into the given {@code batch}.
+   * <p>
+   * the packet is encoded straight into the batch behind a reserved {@link #LENGTH_PREFIX_SIZE} bytes slot which is
+   * backfilled with a padded var int once the length is known. {@link PreEncodedPacket}s are appended as they are
+   * without encoding them again.
+   *
+   * @param batch the batch to append.
+   * @param packet the packet to encode.
+   * @param stats the stats to record.
+   */
+  private static void encode(@NotNull final ByteBuf batch, @NotNull final ShirukaPacket packet,
+                             @NotNull final NetworkStats stats) {
+    if (packet instanceof PreEncodedPacket) {
+      final var preEncoded = (PreEncodedPacket) packet;
+      stats.recordPacketOut(packet.getId() & 0x3ff, preEncoded.getSize());
+      preEncoded.writeTo(batch);
+      return;
+    }
+    final var lengthIndex = batch.writerIndex();
+    batch.writeZero(Protocol.LENGTH_PREFIX_SIZE);
+    Protocol.encodePayload(batch, packet);
+    final var length = batch.writerIndex() - lengthIndex - Protocol.LENGTH_PREFIX_SIZE;
+    stats.recordPacketOut(packet.getId() & 0x3ff, length);
+    VarInts.setPaddedUnsignedVarInt(batch, lengthIndex, length, Protocol.LENGTH_PREFIX_SIZE);
+  }
 }
@@ -193,6 +193,16 @@ public abstract class ShirukaPacket extends Packet {
     return this.id;
   }
 
+  /**
+   * obtains the class that determines how the packet is sent, such as its compression level and encryption.
+   *
+   * @return packet class.
+   */
+  @NotNull
+  public Class<? extends ShirukaPacket> getPacketClass() {
+    return this.getClass();
+  }
+
   /**
    * obtains the sender id.
    *
@@ -56,6 +56,23 @@ public final class VarInts {
     return bytes;
   }
 
+  /**
+   * checks if the given input has enough bytes to read an unsigned var int.
+   *
+   * @param input the input to check.
+   *
+   * @return {@code true} if {@link #readUnsignedVarInt(ByteBuf)} can read the input.
+   */
+  public static boolean hasUnsignedVarInt(@NotNull final ByteBuf input) {
+    final var end = Math.min(input.writerIndex(), input.readerIndex() + 5);
+    for (var index = input.readerIndex(); index < end; index++) {
+      if ((input.getByte(index) & 0x80) == 0) {
+        return true;
+      }
+    }
+    return input.readableBytes() >= 5;
+  }
+
   /**
    * reads the next String value from the byte stream represented by the given buffer.
    *
@@ -130,6 +147,27 @@ public final class VarInts {
     return result << indent;
   }
 
+  /**
+   * sets the given {@code value} at the given {@code index} as an unsigned var int which is padded to {@code width}
+   * bytes with continuation bits, so the value can be backfilled into a slot that was reserved before it was known.
+   *
+   * @param buffer the buffer to set.
+   * @param index the index to set.
+   * @param value the value to set.
+   * @param width the width of the slot.
+   */
+  public static void setPaddedUnsignedVarInt(@NotNull final ByteBuf buffer, final int index, final int value,
+                                             final int width) {
+    Preconditions.checkArgument(value >= 0 && value >>> 7 * width == 0, "%s does not fit into %s bytes!", value,
+      width);
+    var tempValue = value;
+    for (var i = 0; i < width - 1; i++) {
+      buffer.setByte(index + i, tempValue & 0x7F | 0x80);
+      tempValue >>>= 7;
+    }
+    buffer.setByte(index + width - 1, tempValue);
+  }
+
   /**
    * writes the given bytes into the given buffer.
    *
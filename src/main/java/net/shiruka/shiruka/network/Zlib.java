@@ -25,23 +25,22 @@
 
 package net.shiruka.shiruka.network;
 
-import com.nukkitx.natives.util.Natives;
-import com.nukkitx.natives.zlib.Deflater;
-import com.nukkitx.natives.zlib.Inflater;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import java.util.zip.DataFormatException;
+import net.shiruka.api.Shiruka;
+import net.shiruka.shiruka.config.ServerConfig;
 import org.jetbrains.annotations.NotNull;
 
 /**
- * a class that implementation of Zlib natives.
+ * a class that compresses and decompresses raw deflate streams with the {@link ZlibBackend} which is selected by
+ * {@link ServerConfig#USE_NATIVE}.
  */
 public final class Zlib {
 
   /**
    * the raw.
    */
-  static final Zlib RAW = new Zlib(true);
+  static final Zlib RAW = new Zlib(Zlib.selectBackend(), true);
 
   /**
    * the chunk.
@@ -49,29 +48,72 @@ public final class Zlib {
   private static final int CHUNK = 8192;
 
   /**
-   * the deflated local.
+   * the direct only.
+   */
+  private final boolean directOnly;
+
+  /**
+   * the compressor local.
    */
   @NotNull
-  private final ThreadLocal<Deflater> deflatedLocal;
+  private final ThreadLocal<ZlibBackend.Compressor> compressorLocal;
 
   /**
-   * the inflated.
+   * the decompressor local.
    */
   @NotNull
-  private final ThreadLocal<Inflater> inflaterLocal;
+  private final ThreadLocal<ZlibBackend.Decompressor> decompressorLocal;
 
   /**
    * ctor.
    *
+   * @param backend the backend.
    * @param raw the raw.
    */
-  private Zlib(final boolean raw) {
-    this.inflaterLocal = ThreadLocal.withInitial(() -> Natives.ZLIB.get().create(raw));
-    this.deflatedLocal = ThreadLocal.withInitial(() -> Natives.ZLIB.get().create(7, raw));
+  Zlib(@NotNull final ZlibBackend backend, final boolean raw) {
+    this.directOnly = backend.isDirectOnly();
+    this.compressorLocal = ThreadLocal.withInitial(() -> backend.createCompressor(raw));
+    this.decompressorLocal = ThreadLocal.withInitial(() -> backend.createDecompressor(raw));
+  }
+
+  /**
+   * calculates the maximum size that deflating the given {@code length} bytes can produce.
+   *
+   * @param length the length to calculate.
+   *
+   * @return deflate bound.
+   */
+  static int deflateBound(final int length) {
+    return length + (length >>> 12) + (length >>> 14) + (length >>> 25) + 13;
+  }
+
+  /**
+   * selects the backend that is determined by {@link ServerConfig#USE_NATIVE}.
+   * <p>
+   * falls back to {@link JavaZlibBackend} if the natives cannot be loaded.
+   *
+   * @return selected backend.
+   */
+  @NotNull
+  private static ZlibBackend selectBackend() {
+    final ZlibBackend java = new JavaZlibBackend();
+    if (!ServerConfig.USE_NATIVE.getValue().orElse(true)) {
+      return java;
+    }
+    try {
+      final ZlibBackend natives = new NativeZlibBackend();
+      natives.createCompressor(true);
+      natives.createDecompressor(true);
+      Shiruka.getLogger().debug("§7Using {} zlib backend.", natives.getName());
+      return natives;
+    } catch (final Throwable throwable) {
+      Shiruka.getLogger().warn("Unable to load zlib natives, falling back to {}.", java.getName(), throwable);
+      return java;
+    }
   }
 
   /**
-   * deflates the given {@code uncompressed} byte byf.
+   * deflates the given {@code uncompressed} byte buf in a single pass.
    *
    * @param uncompressed the uncompressed to deflate.
    * @param compressed the compressed to deflate.
@@ -82,26 +124,25 @@ public final class Zlib {
     ByteBuf source = null;
     try {
       if (!uncompressed.isDirect()) {
-        source = Unpooled.buffer();
+        source = Protocol.ALLOCATOR.directBuffer(uncompressed.readableBytes());
         source.writeBytes(uncompressed);
       } else {
         source = uncompressed;
       }
+      final var length = source.readableBytes();
+      final var bound = Zlib.deflateBound(length);
       if (!compressed.isDirect()) {
-        destination = Unpooled.buffer();
+        destination = Protocol.ALLOCATOR.directBuffer(bound);
       } else {
         destination = compressed;
+        destination.ensureWritable(bound);
       }
-      final var deflated = this.deflatedLocal.get();
-      deflated.reset();
-      deflated.setLevel(level);
-      deflated.setInput(source.internalNioBuffer(source.readerIndex(), source.readableBytes()));
-      while (!deflated.finished()) {
-        final var index = destination.writerIndex();
-        destination.ensureWritable(Zlib.CHUNK);
-        final var written = deflated.deflate(destination.internalNioBuffer(index, Zlib.CHUNK));
-        destination.writerIndex(index + written);
-      }
+      final var index = destination.writerIndex();
+      final var written = this.compressorLocal.get().deflate(
+        source.internalNioBuffer(source.readerIndex(), length),
+        destination.internalNioBuffer(index, bound),
+        level);
+      destination.writerIndex(index + written);
       if (destination != compressed) {
         compressed.writeBytes(destination);
       }
@@ -116,48 +157,71 @@ public final class Zlib {
   }
 
   /**
-   * inflates the given {@code packet} byte byf.
+   * inflates the given {@code packet} into the given {@code window} step by step, and calls the given {@code consumer}
+   * after every step, so the consumer can read the complete data and compact the window.
+   * <p>
+   * each step inflates at most one byte more than the remaining budget, so exceeding the maximum size is detected
+   * without inflating the rest of the data.
    *
    * @param packet the packet to inflate.
    * @param maxSize the maximum size to inflate.
+   * @param window the window to inflate.
+   * @param consumer the consumer to call.
    *
-   * @return inflated byte buf instance.
+   * @return the inflated size.
    *
-   * @throws DataFormatException if inflated data exceeds maximum size.
+   * @throws DataFormatException if the data is invalid or inflated data exceeds maximum size.
    */
-  @NotNull
-  ByteBuf inflate(@NotNull final ByteBuf packet, final int maxSize) throws DataFormatException {
+  int inflate(@NotNull final ByteBuf packet, final int maxSize, @NotNull final ByteBuf window,
+               @NotNull final WindowConsumer consumer) throws DataFormatException {
     ByteBuf source = null;
-    final var decompressed = Unpooled.buffer();
     try {
-      if (!packet.isDirect()) {
-        final var temporary = Unpooled.buffer();
-        temporary.writeBytes(packet);
+      if (!packet.isDirect() && this.directOnly) {
+        final var temporary = Protocol.ALLOCATOR.directBuffer(packet.readableBytes());
+        temporary.writeBytes(packet, packet.readerIndex(), packet.readableBytes());
         source = temporary;
       } else {
         source = packet;
       }
-      final var inflater = this.inflaterLocal.get();
-      inflater.reset();
-      inflater.setInput(source.internalNioBuffer(source.readerIndex(), source.readableBytes()));
-      inflater.finished();
-      while (!inflater.finished()) {
-        decompressed.ensureWritable(Zlib.CHUNK);
-        final var index = decompressed.writerIndex();
-        final var written = inflater.inflate(decompressed.internalNioBuffer(index, Zlib.CHUNK));
-        decompressed.writerIndex(index + written);
-        if (maxSize > 0 && decompressed.writerIndex() >= maxSize) {
+      final var decompressor = this.decompressorLocal.get();
+      decompressor.reset(source.nioBuffer(source.readerIndex(), source.readableBytes()));
+      var total = 0L;
+      while (!decompressor.isFinished()) {
+        window.ensureWritable(Zlib.CHUNK);
+        final var index = window.writerIndex();
+        final var length = (int) Math.min(window.writableBytes(), maxSize - total + 1L);
+        final var written = decompressor.inflate(window.internalNioBuffer(index, length));
+        if (written == 0 && !decompressor.isFinished()) {
+          throw new DataFormatException("Compressed data is truncated!");
+        }
+        window.writerIndex(index + written);
+        total += written;
+        if (total > maxSize) {
           throw new DataFormatException("Inflated data exceeds maximum size!");
         }
+        consumer.accept(window);
       }
-      return decompressed;
-    } catch (final DataFormatException e) {
-      decompressed.release();
-      throw e;
+      return (int) total;
     } finally {
       if (source != null && source != packet) {
         source.release();
       }
     }
   }
+
+  /**
+   * an interface to determine consumers that read the inflated data from the window.
+   */
+  @FunctionalInterface
+  interface WindowConsumer {
+
+    /**
+     * reads the complete data in the given {@code window}.
+     *
+     * @param window the window to read.
+     *
+     * @throws DataFormatException if the data is invalid.
+     */
+    void accept(@NotNull ByteBuf window) throws DataFormatException;
+  }
 }
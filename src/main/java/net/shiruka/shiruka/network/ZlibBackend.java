@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.network;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * an interface to determine the implementations that {@link Zlib} uses to compress and decompress.
+ * <p>
+ * compressors and decompressors are stateful, so {@link Zlib} creates one of each per thread.
+ */
+interface ZlibBackend {
+
+  /**
+   * creates a new compressor.
+   *
+   * @param raw the raw to create, {@code true} to omit the zlib header and checksum.
+   *
+   * @return a new compressor instance.
+   */
+  @NotNull
+  Compressor createCompressor(boolean raw);
+
+  /**
+   * creates a new decompressor.
+   *
+   * @param raw the raw to create, {@code true} to omit the zlib header and checksum.
+   *
+   * @return a new decompressor instance.
+   */
+  @NotNull
+  Decompressor createDecompressor(boolean raw);
+
+  /**
+   * obtains the name.
+   *
+   * @return name.
+   */
+  @NotNull
+  String getName();
+
+  /**
+   * checks if the backend can only work with direct buffers.
+   *
+   * @return {@code true} if heap buffers have to be copied into direct buffers.
+   */
+  boolean isDirectOnly();
+
+  /**
+   * an interface to determine compressors.
+   */
+  interface Compressor {
+
+    /**
+     * deflates all remaining bytes of the given {@code input} into the given {@code output} and finishes the stream.
+     * <p>
+     * the output should have at least {@link Zlib#deflateBound(int)} bytes remaining.
+     *
+     * @param input the input to deflate.
+     * @param output the output to deflate.
+     * @param level the level to deflate.
+     *
+     * @return written byte count.
+     */
+    int deflate(@NotNull ByteBuffer input, @NotNull ByteBuffer output, int level);
+  }
+
+  /**
+   * an interface to determine decompressors.
+   */
+  interface Decompressor {
+
+    /**
+     * inflates the input into the given {@code output}.
+     *
+     * @param output the output to inflate.
+     *
+     * @return written byte count.
+     *
+     * @throws DataFormatException if the compressed data is invalid.
+     */
+    int inflate(@NotNull ByteBuffer output) throws DataFormatException;
+
+    /**
+     * checks if the end of the compressed stream is reached.
+     *
+     * @return {@code true} if the stream is finished.
+     */
+    boolean isFinished();
+
+    /**
+     * resets the decompressor and sets the given {@code input}.
+     *
+     * @param input the input to set.
+     */
+    void reset(@NotNull ByteBuffer input);
+  }
+}
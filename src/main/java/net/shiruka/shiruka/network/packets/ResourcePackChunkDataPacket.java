@@ -25,6 +25,9 @@
 
 package net.shiruka.shiruka.network.packets;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import java.util.UUID;
 import net.shiruka.shiruka.network.ShirukaPacket;
 import net.shiruka.shiruka.network.VarInts;
@@ -42,9 +45,10 @@ public final class ResourcePackChunkDataPacket extends ShirukaPacket {
   private final int chunkIndex;
 
   /**
-   * the data.
+   * the data, which may be a slice of a memory-mapped pack and is never written.
    */
-  private final byte[] data;
+  @NotNull
+  private final ByteBuf data;
 
   /**
    * the pack id.
@@ -65,6 +69,8 @@ public final class ResourcePackChunkDataPacket extends ShirukaPacket {
 
   /**
    * ctor.
+   * <p>
+   * the given {@code data} is wrapped, not copied.
    *
    * @param chunkIndex the chunk index.
    * @param data the data.
@@ -74,9 +80,25 @@ public final class ResourcePackChunkDataPacket extends ShirukaPacket {
    */
   public ResourcePackChunkDataPacket(final int chunkIndex, final byte[] data, @NotNull final UUID packId,
                                      @Nullable final String packVersion, final long progress) {
+    this(chunkIndex, Unpooled.wrappedBuffer(data), packId, packVersion, progress);
+  }
+
+  /**
+   * ctor.
+   * <p>
+   * the given {@code data} is not copied, it is written into the packet buffer directly when the packet is encoded.
+   *
+   * @param chunkIndex the chunk index.
+   * @param data the data.
+   * @param packId the pack id.
+   * @param packVersion the pack version.
+   * @param progress the progress.
+   */
+  public ResourcePackChunkDataPacket(final int chunkIndex, @NotNull final ByteBuf data, @NotNull final UUID packId,
+                                     @Nullable final String packVersion, final long progress) {
     super(ShirukaPacket.ID_RESOURCE_PACK_CHUNK_DATA);
     this.chunkIndex = chunkIndex;
-    this.data = data.clone();
+    this.data = data;
     this.packId = packId;
     this.packVersion = packVersion;
     this.progress = progress;
@@ -90,7 +112,8 @@ public final class ResourcePackChunkDataPacket extends ShirukaPacket {
     VarInts.writeString(this.buffer(), packInfo);
     this.writeIntLE(this.getChunkIndex());
     this.writeLongLE(this.getProgress());
-    this.writeByteArray(this.getData());
+    VarInts.writeUnsignedInt(this.buffer(), this.data.readableBytes());
+    this.buffer().writeBytes(this.data, this.data.readerIndex(), this.data.readableBytes());
   }
 
   /**
@@ -108,7 +131,17 @@ public final class ResourcePackChunkDataPacket extends ShirukaPacket {
    * @return data.
    */
   public byte[] getData() {
-    return this.data.clone();
+    return ByteBufUtil.getBytes(this.data);
+  }
+
+  /**
+   * obtains the data without copying it.
+   *
+   * @return a read-only view of the data.
+   */
+  @NotNull
+  public ByteBuf getDataBuffer() {
+    return this.data.asReadOnly();
   }
 
   /**
@@ -38,7 +38,7 @@ public final class ResourcePackDataInfoPacket extends ShirukaPacket {
   /**
    * the maximum chunk size.
    */
-  private static final int MAX_CHUNK_SIZE = 1048576;
+  public static final int MAX_CHUNK_SIZE = 1048576;
 
   /**
    * the pack.
@@ -56,11 +56,22 @@ public final class ResourcePackDataInfoPacket extends ShirukaPacket {
     this.pack = pack;
   }
 
+  /**
+   * calculates the chunk count of a pack that has the given {@code size}.
+   *
+   * @param size the size to calculate.
+   *
+   * @return chunk count.
+   */
+  public static int getChunkCount(final long size) {
+    return (int) ((size + ResourcePackDataInfoPacket.MAX_CHUNK_SIZE - 1) / ResourcePackDataInfoPacket.MAX_CHUNK_SIZE);
+  }
+
   @Override
   public void encode() {
     VarInts.writeString(this.buffer(), this.pack.getId().toString() + '_' + this.pack.getVersion());
     this.writeIntLE(ResourcePackDataInfoPacket.MAX_CHUNK_SIZE);
-    this.writeIntLE((int) (this.pack.getSize() / ResourcePackDataInfoPacket.MAX_CHUNK_SIZE));
+    this.writeIntLE(ResourcePackDataInfoPacket.getChunkCount(this.pack.getSize()));
     this.writeLongLE(this.pack.getSize());
     final var hash = this.pack.getHash();
     VarInts.writeUnsignedInt(this.buffer(), hash.length);
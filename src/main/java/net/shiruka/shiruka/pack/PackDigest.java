@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.pack;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents the SHA-256 hash and the size of a prepared pack file.
+ */
+public final class PackDigest {
+
+  /**
+   * the algorithm.
+   */
+  private static final String ALGORITHM = "SHA-256";
+
+  /**
+   * the size of the file regions that are mapped at once while hashing.
+   */
+  private static final long REGION_SIZE = 64L * 1024L * 1024L;
+
+  /**
+   * the hash.
+   */
+  private final byte[] hash;
+
+  /**
+   * the size.
+   */
+  private final long size;
+
+  /**
+   * ctor.
+   *
+   * @param hash the hash.
+   * @param size the size.
+   */
+  PackDigest(final byte[] hash, final long size) {
+    this.hash = hash.clone();
+    this.size = size;
+  }
+
+  /**
+   * computes the digest of the given {@code file}.
+   * <p>
+   * the file is mapped region by region and streamed into the digest, so it is never copied onto the heap.
+   *
+   * @param file the file to compute.
+   *
+   * @return a new digest instance.
+   *
+   * @throws IOException if the file cannot be read.
+   */
+  @NotNull
+  public static PackDigest compute(@NotNull final Path file) throws IOException {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance(PackDigest.ALGORITHM);
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final var size = channel.size();
+      for (var position = 0L; position < size; position += PackDigest.REGION_SIZE) {
+        final var length = Math.min(PackDigest.REGION_SIZE, size - position);
+        digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+      }
+      return new PackDigest(digest.digest(), size);
+    }
+  }
+
+  /**
+   * obtains the hash.
+   *
+   * @return hash.
+   */
+  public byte[] getHash() {
+    return this.hash.clone();
+  }
+
+  /**
+   * obtains the size.
+   *
+   * @return size.
+   */
+  public long getSize() {
+    return this.size;
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.pack;
+
+import com.google.common.io.BaseEncoding;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that caches {@link PackDigest}s in a sidecar file, keyed by the path, the size and the last modified time of
+ * the prepared pack files, so restarts skip hashing the packs that have not changed.
+ * <p>
+ * this class is thread-safe, so packs can be hashed in parallel.
+ */
+public final class PackDigestCache {
+
+  /**
+   * the hex encoding.
+   */
+  private static final BaseEncoding HEX = BaseEncoding.base16().lowerCase();
+
+  /**
+   * the logger.
+   */
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  /**
+   * the separator of the values in the sidecar file.
+   */
+  private static final char SEPARATOR = ':';
+
+  /**
+   * the entries by the pack file paths.
+   */
+  private final Map<String, String> entries = new ConcurrentHashMap<>();
+
+  /**
+   * the sidecar file.
+   */
+  @NotNull
+  private final Path file;
+
+  /**
+   * the changed.
+   */
+  private volatile boolean changed;
+
+  /**
+   * the loaded.
+   */
+  private volatile boolean loaded;
+
+  /**
+   * ctor.
+   *
+   * @param file the file.
+   */
+  public PackDigestCache(@NotNull final Path file) {
+    this.file = file;
+  }
+
+  /**
+   * parses the given cache {@code entry} if it matches the given {@code size} and {@code modified} time.
+   *
+   * @param entry the entry to parse.
+   * @param size the size to match.
+   * @param modified the modified to match.
+   *
+   * @return the cached digest, or {@code null} if the entry is absent, stale or invalid.
+   */
+  @Nullable
+  private static PackDigest parse(@Nullable final String entry, final long size, final long modified) {
+    if (entry == null) {
+      return null;
+    }
+    final var parts = entry.split(String.valueOf(PackDigestCache.SEPARATOR), 3);
+    if (parts.length != 3) {
+      return null;
+    }
+    try {
+      if (Long.parseLong(parts[0]) != size || Long.parseLong(parts[1]) != modified) {
+        return null;
+      }
+      return new PackDigest(PackDigestCache.HEX.decode(parts[2]), size);
+    } catch (final IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * obtains the digest of the given prepared pack {@code file}, computes it if it's not cached or the file changed.
+   *
+   * @param file the file to obtain.
+   *
+   * @return the digest of the file.
+   *
+   * @throws IOException if the file cannot be read.
+   */
+  @NotNull
+  public PackDigest get(@NotNull final Path file) throws IOException {
+    this.load();
+    final var key = file.toAbsolutePath().normalize().toString();
+    final var size = Files.size(file);
+    final var modified = Files.getLastModifiedTime(file).toMillis();
+    final var cached = PackDigestCache.parse(this.entries.get(key), size, modified);
+    if (cached != null) {
+      return cached;
+    }
+    final var digest = PackDigest.compute(file);
+    this.entries.put(key, String.valueOf(digest.getSize()) + PackDigestCache.SEPARATOR + modified +
+      PackDigestCache.SEPARATOR + PackDigestCache.HEX.encode(digest.getHash()));
+    this.changed = true;
+    return digest;
+  }
+
+  /**
+   * loads the sidecar file once.
+   */
+  public synchronized void load() {
+    if (this.loaded) {
+      return;
+    }
+    this.loaded = true;
+    if (Files.notExists(this.file)) {
+      return;
+    }
+    final var properties = new Properties();
+    try (final var reader = Files.newBufferedReader(this.file)) {
+      properties.load(reader);
+    } catch (final IOException e) {
+      PackDigestCache.LOGGER.warn("Unable to read the pack digest cache {}", this.file, e);
+      return;
+    }
+    properties.stringPropertyNames().forEach(key -> this.entries.put(key, properties.getProperty(key)));
+  }
+
+  /**
+   * saves the sidecar file if any digest is computed since the last save, the entries of the deleted files are
+   * dropped.
+   */
+  public synchronized void save() {
+    if (!this.changed) {
+      return;
+    }
+    this.changed = false;
+    final var properties = new Properties();
+    this.entries.forEach((key, value) -> {
+      if (Files.exists(Path.of(key))) {
+        properties.setProperty(key, value);
+      }
+    });
+    try (final var writer = Files.newBufferedWriter(this.file)) {
+      properties.store(writer, "the pack digest cache of the Shiru ka, size:last modified:sha-256");
+    } catch (final IOException e) {
+      PackDigestCache.LOGGER.warn("Unable to write the pack digest cache {}", this.file, e);
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.pack;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that computes the SHA-256 fingerprints of pack files and directories from their contents.
+ * <p>
+ * the sizes and the last modified times are not trusted, since copying with preserved timestamps or an edit within
+ * the resolution of the file system clock keeps them as they are.
+ */
+public final class PackFingerprint {
+
+  /**
+   * the algorithm.
+   */
+  private static final String ALGORITHM = "SHA-256";
+
+  /**
+   * the read buffer size.
+   */
+  private static final int BUFFER_SIZE = 65536;
+
+  /**
+   * ctor.
+   */
+  private PackFingerprint() {
+  }
+
+  /**
+   * computes the fingerprint of the given {@code path}.
+   * <p>
+   * the fingerprint of a directory covers the relative names and the contents of its regular files, in the order of
+   * their names.
+   *
+   * @param path the path to compute.
+   *
+   * @return the fingerprint.
+   *
+   * @throws IOException if something went wrong when reading the files.
+   */
+  public static byte[] compute(@NotNull final Path path) throws IOException {
+    final var digest = PackFingerprint.digest();
+    final var buffer = ByteBuffer.allocate(PackFingerprint.BUFFER_SIZE);
+    if (!Files.isDirectory(path)) {
+      PackFingerprint.update(digest, path, buffer);
+      return digest.digest();
+    }
+    final var files = PackFingerprint.list(path);
+    final var fileDigest = PackFingerprint.digest();
+    for (final var file : files) {
+      digest.update(PackFingerprint.name(path, file).getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+      PackFingerprint.update(fileDigest, file, buffer);
+      digest.update(fileDigest.digest());
+    }
+    return digest.digest();
+  }
+
+  /**
+   * creates a sha-256 message digest.
+   *
+   * @return a new message digest.
+   */
+  @NotNull
+  private static MessageDigest digest() {
+    try {
+      return MessageDigest.getInstance(PackFingerprint.ALGORITHM);
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * lists the regular files of the given {@code directory} recursively, sorted by their relative names.
+   *
+   * @param directory the directory to list.
+   *
+   * @return sorted files.
+   *
+   * @throws IOException if something went wrong when walking the directory.
+   */
+  @NotNull
+  private static List<Path> list(@NotNull final Path directory) throws IOException {
+    try (final var stream = Files.walk(directory)) {
+      return stream
+        .filter(Files::isRegularFile)
+        .sorted(Comparator.comparing(file -> PackFingerprint.name(directory, file)))
+        .collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * obtains the relative name of the given {@code file} with forward slashes.
+   *
+   * @param directory the directory to relativize.
+   * @param file the file to obtain.
+   *
+   * @return relative name.
+   */
+  @NotNull
+  private static String name(@NotNull final Path directory, @NotNull final Path file) {
+    return directory.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+  }
+
+  /**
+   * streams the contents of the given {@code file} into the given {@code digest}.
+   *
+   * @param digest the digest to update.
+   * @param file the file to read.
+   * @param buffer the read buffer.
+   *
+   * @throws IOException if something went wrong when reading the file.
+   */
+  private static void update(@NotNull final MessageDigest digest, @NotNull final Path file,
+                             @NotNull final ByteBuffer buffer) throws IOException {
+    try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      while (channel.read(buffer.clear()) != -1) {
+        digest.update(buffer.flip());
+      }
+    }
+  }
+}
@@ -0,0 +1,390 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.pack;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import net.shiruka.api.pack.Pack;
+import net.shiruka.api.pack.PackLoader;
+import net.shiruka.api.pack.PackManifest;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that resolves the load order of discovered packs from their dependency graph.
+ * <p>
+ * the graph is walked once in depth-first order, so a pack is resolved after every pack that it depends on, and
+ * packs whose dependencies are missing, too old or cyclic are rejected together with their dependents.
+ */
+final class PackResolver {
+
+  /**
+   * the candidates by their unique id.
+   */
+  private final Map<UUID, Candidate> candidates = new Object2ObjectOpenHashMap<>();
+
+  /**
+   * the packs that are already loaded by their unique id.
+   */
+  @NotNull
+  private final Map<UUID, Pack> loaded;
+
+  /**
+   * the rejected candidates and the reasons.
+   */
+  private final Map<Candidate, String> rejected = new Object2ObjectOpenHashMap<>();
+
+  /**
+   * the resolved candidates in their load order.
+   */
+  private final List<Candidate> resolved = new ObjectArrayList<>();
+
+  /**
+   * the states of the visited candidates.
+   */
+  private final Map<UUID, State> states = new Object2ObjectOpenHashMap<>();
+
+  /**
+   * ctor.
+   *
+   * @param loaded the packs that are already loaded.
+   */
+  PackResolver(@NotNull final Map<UUID, Pack> loaded) {
+    this.loaded = loaded;
+  }
+
+  /**
+   * compares the given dotted versions numerically.
+   *
+   * @param first the first version to compare.
+   * @param second the second version to compare.
+   *
+   * @return a negative number, zero or a positive number as the first version is older than, equal to, or newer
+   *   than the second version.
+   */
+  static int compareVersions(@NotNull final String first, @NotNull final String second) {
+    final var firstParts = first.split("[^0-9]+");
+    final var secondParts = second.split("[^0-9]+");
+    final var length = Math.max(firstParts.length, secondParts.length);
+    for (var index = 0; index < length; index++) {
+      final var result = Long.compare(
+        PackResolver.versionPart(firstParts, index),
+        PackResolver.versionPart(secondParts, index));
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * obtains the numeric version part at the given index.
+   *
+   * @param parts the parts to obtain.
+   * @param index the index to obtain.
+   *
+   * @return the version part, or {@code 0} if the part is missing.
+   */
+  private static long versionPart(@NotNull final String[] parts, final int index) {
+    if (index >= parts.length || parts[index].isEmpty()) {
+      return 0L;
+    }
+    try {
+      return Long.parseLong(parts[index]);
+    } catch (final NumberFormatException e) {
+      return Long.MAX_VALUE;
+    }
+  }
+
+  /**
+   * adds the given candidate into the graph.
+   * <p>
+   * if another candidate has the same unique id, the newer version is kept.
+   *
+   * @param candidate the candidate to add.
+   *
+   * @return the candidate that was replaced or ignored, or {@code null} if there was no conflict.
+   */
+  @Nullable
+  Candidate add(@NotNull final Candidate candidate) {
+    final var uuid = candidate.getManifest().getHeader().getUuid();
+    final var previous = this.candidates.get(uuid);
+    if (previous == null) {
+      this.candidates.put(uuid, candidate);
+      return null;
+    }
+    if (PackResolver.compareVersions(candidate.getVersion(), previous.getVersion()) > 0) {
+      this.candidates.put(uuid, candidate);
+      return previous;
+    }
+    return candidate;
+  }
+
+  /**
+   * obtains the rejected candidates and the reasons.
+   *
+   * @return rejected candidates.
+   */
+  @NotNull
+  Map<Candidate, String> getRejected() {
+    return Collections.unmodifiableMap(this.rejected);
+  }
+
+  /**
+   * resolves the load order of the candidates.
+   *
+   * @return resolved candidates, dependencies come before their dependents.
+   */
+  @NotNull
+  List<Candidate> resolve() {
+    for (final var candidate : this.candidates.values()) {
+      this.visit(candidate);
+    }
+    return Collections.unmodifiableList(this.resolved);
+  }
+
+  /**
+   * checks the given dependency.
+   *
+   * @param dependency the dependency to check.
+   *
+   * @return the reason if the dependency can't be satisfied, otherwise {@code null}.
+   */
+  @Nullable
+  private String check(@NotNull final PackManifest.Dependency dependency) {
+    final var uuid = dependency.getUuid();
+    final var required = String.valueOf(dependency.getVersion());
+    final var pack = this.loaded.get(uuid);
+    if (pack != null) {
+      final var version = pack.getVersion().toString();
+      if (PackResolver.compareVersions(version, required) < 0) {
+        return String.format("%s requires %s but %s is loaded", uuid, required, version);
+      }
+      return null;
+    }
+    final var candidate = this.candidates.get(uuid);
+    if (candidate == null) {
+      return String.format("%s:%s is missing", uuid, required);
+    }
+    if (PackResolver.compareVersions(candidate.getVersion(), required) < 0) {
+      return String.format("%s requires %s but %s is found", candidate.getName(), required, candidate.getVersion());
+    }
+    if (!this.visit(candidate)) {
+      return String.format("%s can't be loaded", candidate.getName());
+    }
+    return null;
+  }
+
+  /**
+   * visits the given candidate and its dependencies.
+   *
+   * @param candidate the candidate to visit.
+   *
+   * @return {@code true} if the candidate is resolved.
+   */
+  private boolean visit(@NotNull final Candidate candidate) {
+    final var uuid = candidate.getManifest().getHeader().getUuid();
+    final var state = this.states.get(uuid);
+    if (state == State.RESOLVED) {
+      return true;
+    }
+    if (state == State.REJECTED) {
+      return false;
+    }
+    if (state == State.VISITING) {
+      this.states.put(uuid, State.REJECTED);
+      this.rejected.put(candidate, "cyclic dependency");
+      return false;
+    }
+    this.states.put(uuid, State.VISITING);
+    for (final var dependency : candidate.getManifest().getDependencies()) {
+      final var reason = this.check(dependency);
+      if (reason != null) {
+        this.states.put(uuid, State.REJECTED);
+        this.rejected.putIfAbsent(candidate, reason);
+        return false;
+      }
+    }
+    this.states.put(uuid, State.RESOLVED);
+    this.resolved.add(candidate);
+    return true;
+  }
+
+  /**
+   * an enum class that contains the visit states of the candidates.
+   */
+  private enum State {
+    /**
+     * the candidate's dependencies are being visited.
+     */
+    VISITING,
+    /**
+     * the candidate can be loaded.
+     */
+    RESOLVED,
+    /**
+     * the candidate can't be loaded.
+     */
+    REJECTED
+  }
+
+  /**
+   * a class that represents discovered packs which are not loaded yet.
+   */
+  static final class Candidate {
+
+    /**
+     * the elapsed nanoseconds to open the pack and parse its manifest.
+     */
+    private final long elapsedNanos;
+
+    /**
+     * the loader.
+     */
+    @NotNull
+    private final PackLoader loader;
+
+    /**
+     * the manifest.
+     */
+    @NotNull
+    private final PackManifest manifest;
+
+    /**
+     * the loaded pack that is reused, since the pack has not changed since it was loaded.
+     */
+    @Nullable
+    private final Pack previous;
+
+    /**
+     * the stamp of the pack files, which tells if the pack has changed.
+     */
+    @Nullable
+    private final String stamp;
+
+    /**
+     * ctor.
+     *
+     * @param loader the loader.
+     * @param manifest the manifest.
+     * @param elapsedNanos the elapsed nanoseconds to open the pack and parse its manifest.
+     * @param stamp the stamp of the pack files.
+     * @param previous the loaded pack that is reused.
+     */
+    Candidate(@NotNull final PackLoader loader, @NotNull final PackManifest manifest, final long elapsedNanos,
+              @Nullable final String stamp, @Nullable final Pack previous) {
+      this.loader = loader;
+      this.manifest = manifest;
+      this.elapsedNanos = elapsedNanos;
+      this.stamp = stamp;
+      this.previous = previous;
+    }
+
+    /**
+     * ctor.
+     *
+     * @param loader the loader.
+     * @param manifest the manifest.
+     * @param elapsedNanos the elapsed nanoseconds to open the pack and parse its manifest.
+     */
+    Candidate(@NotNull final PackLoader loader, @NotNull final PackManifest manifest, final long elapsedNanos) {
+      this(loader, manifest, elapsedNanos, null, null);
+    }
+
+    /**
+     * obtains the elapsed nanoseconds to open the pack and parse its manifest.
+     *
+     * @return elapsed nanoseconds.
+     */
+    long getElapsedNanos() {
+      return this.elapsedNanos;
+    }
+
+    /**
+     * obtains the loader.
+     *
+     * @return loader.
+     */
+    @NotNull
+    PackLoader getLoader() {
+      return this.loader;
+    }
+
+    /**
+     * obtains the manifest.
+     *
+     * @return manifest.
+     */
+    @NotNull
+    PackManifest getManifest() {
+      return this.manifest;
+    }
+
+    /**
+     * obtains the name.
+     *
+     * @return name.
+     */
+    @NotNull
+    String getName() {
+      return this.manifest.getHeader().getName() + ":" + this.getVersion();
+    }
+
+    /**
+     * obtains the loaded pack that is reused.
+     *
+     * @return previous pack.
+     */
+    @Nullable
+    Pack getPrevious() {
+      return this.previous;
+    }
+
+    /**
+     * obtains the stamp of the pack files.
+     *
+     * @return stamp.
+     */
+    @Nullable
+    String getStamp() {
+      return this.stamp;
+    }
+
+    /**
+     * obtains the version.
+     *
+     * @return version.
+     */
+    @NotNull
+    String getVersion() {
+      return String.valueOf(this.manifest.getHeader().getVersion());
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.pack;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that watches the packs directory and its sub directories, and runs a reload when they stop changing.
+ * <p>
+ * the changes are debounced, so copying a pack into the directory causes a single reload. hidden files such as the
+ * digest cache are ignored, so the reload itself does not cause another reload.
+ */
+final class PackWatcher implements Closeable {
+
+  /**
+   * the quiet time after the last change before reloading.
+   */
+  private static final long DEBOUNCE_NANOS = TimeUnit.SECONDS.toNanos(2L);
+
+  /**
+   * the logger.
+   */
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  /**
+   * the directory.
+   */
+  @NotNull
+  private final Path directory;
+
+  /**
+   * the reload task.
+   */
+  @NotNull
+  private final Runnable reload;
+
+  /**
+   * the thread.
+   */
+  @NotNull
+  private final Thread thread;
+
+  /**
+   * the watch service.
+   */
+  @NotNull
+  private final WatchService watchService;
+
+  /**
+   * ctor.
+   *
+   * @param directory the directory.
+   * @param reload the reload task.
+   *
+   * @throws IOException if the watch service could not be created.
+   */
+  PackWatcher(@NotNull final Path directory, @NotNull final Runnable reload) throws IOException {
+    this.directory = directory;
+    this.reload = reload;
+    this.watchService = directory.getFileSystem().newWatchService();
+    this.thread = new Thread(this::run, "Shiruka Pack Watcher");
+    this.thread.setDaemon(true);
+  }
+
+  /**
+   * checks if the given {@code path} is hidden.
+   *
+   * @param path the path to check.
+   *
+   * @return {@code true} if the file name starts with a dot.
+   */
+  private static boolean isHidden(@NotNull final Path path) {
+    final var fileName = path.getFileName();
+    return fileName != null && fileName.toString().startsWith(".");
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.watchService.close();
+    this.thread.interrupt();
+  }
+
+  /**
+   * registers the directories and starts watching.
+   *
+   * @throws IOException if the directories could not be registered.
+   */
+  void start() throws IOException {
+    this.register(this.directory);
+    this.thread.start();
+  }
+
+  /**
+   * registers the given {@code directory} and its sub directories into the {@link #watchService}.
+   *
+   * @param directory the directory to register.
+   *
+   * @throws IOException if the directories could not be registered.
+   */
+  private void register(@NotNull final Path directory) throws IOException {
+    try (final var stream = Files.walk(directory)) {
+      for (final var iterator = stream.iterator(); iterator.hasNext(); ) {
+        final var path = iterator.next();
+        if (Files.isDirectory(path) && !PackWatcher.isHidden(path)) {
+          path.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+      }
+    }
+  }
+
+  /**
+   * waits for the changes and runs the reload task when the directory stops changing.
+   */
+  private void run() {
+    var deadline = 0L;
+    var pending = false;
+    try {
+      while (true) {
+        final WatchKey key;
+        if (pending) {
+          key = this.watchService.poll(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } else {
+          key = this.watchService.take();
+        }
+        if (key == null) {
+          pending = false;
+          PackWatcher.LOGGER.info("§7The packs directory has changed, reloading the packs.");
+          this.reload.run();
+          continue;
+        }
+        final var parent = (Path) key.watchable();
+        for (final var event : key.pollEvents()) {
+          if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            pending = true;
+            continue;
+          }
+          final var path = parent.resolve((Path) event.context());
+          if (PackWatcher.isHidden(path)) {
+            continue;
+          }
+          if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+            try {
+              this.register(path);
+            } catch (final IOException e) {
+              PackWatcher.LOGGER.warn("Unable to watch {}", path, e);
+            }
+          }
+          pending = true;
+        }
+        key.reset();
+        if (pending) {
+          deadline = System.nanoTime() + PackWatcher.DEBOUNCE_NANOS;
+        }
+      }
+    } catch (final InterruptedException | ClosedWatchServiceException ignored) {
+      // ignored.
+    }
+  }
+}
@@ -26,20 +26,33 @@
 package net.shiruka.shiruka.pack;
 
 import com.google.common.base.Preconditions;
+import com.google.common.io.BaseEncoding;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
 import java.util.StringJoiner;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import net.shiruka.api.Shiruka;
 import net.shiruka.api.pack.Pack;
@@ -50,6 +63,8 @@ import net.shiruka.api.pack.ResourcePackType;
 import net.shiruka.api.text.TranslatedText;
 import net.shiruka.shiruka.ShirukaMain;
 import net.shiruka.shiruka.config.ServerConfig;
+import net.shiruka.shiruka.network.PreEncodedPacket;
+import net.shiruka.shiruka.network.ShirukaPacket;
 import net.shiruka.shiruka.network.packets.PackInfoPacket;
 import net.shiruka.shiruka.network.packets.PackStackPacket;
 import net.shiruka.shiruka.pack.loader.RplDirectory;
@@ -58,6 +73,7 @@ import net.shiruka.shiruka.pack.pack.ResourcePack;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * a simple implementation for {@link PackManager}.
@@ -79,11 +95,26 @@ public final class SimplePackManager implements PackManager {
    */
   private static final Path PACKS_PATH = ShirukaMain.HOME_PATH.resolve("packs");
 
+  /**
+   * the pack digest cache path.
+   */
+  private static final Path DIGEST_CACHE_PATH = SimplePackManager.PACKS_PATH.resolve(".digests");
+
   /**
    * the pack success.
    */
   private static final String PACK_SUCCESS = "shiruka.pack.success";
 
+  /**
+   * the minimum nanoseconds that the retired packs are kept open for the players that are still downloading them.
+   */
+  private static final long RETIRE_GRACE_NANOS = TimeUnit.MINUTES.toNanos(1L);
+
+  /**
+   * the digest cache.
+   */
+  private final PackDigestCache digestCache = new PackDigestCache(SimplePackManager.DIGEST_CACHE_PATH);
+
   /**
    * the loaders.
    */
@@ -95,71 +126,174 @@ public final class SimplePackManager implements PackManager {
   private final EnumMap<PackManifest.PackType, Pack.Factory> packFactories = new EnumMap<>(PackManifest.PackType.class);
 
   /**
-   * the packs info packet.
+   * the packs info packet, which is pre-encoded when the registration is closed.
    */
-  private final AtomicReference<PackInfoPacket> packInfo = new AtomicReference<>(new PackInfoPacket());
+  private final AtomicReference<ShirukaPacket> packInfo = new AtomicReference<>(new PackInfoPacket());
 
   /**
-   * the pack stack packet.
+   * the lock that serializes the changes of the packs, so the loads and the reloads never overlap.
    */
-  private final AtomicReference<PackStackPacket> packStack = new AtomicReference<>(new PackStackPacket());
+  private final Object packLock = new Object();
 
   /**
-   * the packs.
+   * the pack stack packet, which is pre-encoded when the registration is closed.
    */
-  private final Map<String, Pack> packs = new Object2ObjectOpenHashMap<>();
+  private final AtomicReference<ShirukaPacket> packStack = new AtomicReference<>(new PackStackPacket());
 
   /**
-   * the packs by id.
+   * the queued reload, which runs once after the current reload finishes.
    */
-  private final Map<UUID, Pack> packsById = new Object2ObjectOpenHashMap<>();
+  private final AtomicReference<CompletableFuture<Integer>> queuedReload = new AtomicReference<>();
+
+  /**
+   * the reloading.
+   */
+  private final AtomicBoolean reloading = new AtomicBoolean();
+
+  /**
+   * the packs that are replaced by a reload, and wait for their downloads to finish before closing.
+   */
+  private final Queue<RetiredPacks> retired = new ConcurrentLinkedQueue<>();
 
   /**
    * the closed.
    */
   private volatile boolean closed;
 
+  /**
+   * the packs that are loaded from outside of the packs directory, which are carried into the reloaded packs.
+   */
+  private volatile Set<Pack> externalPacks = new ReferenceOpenHashSet<>();
+
+  /**
+   * the packs.
+   */
+  private volatile Map<String, Pack> packs = new Object2ObjectOpenHashMap<>();
+
+  /**
+   * the packs by id.
+   */
+  private volatile Map<UUID, Pack> packsById = new Object2ObjectOpenHashMap<>();
+
+  /**
+   * the packs by their paths with the stamps of their files, which are reused by the reload if they have not changed.
+   */
+  private volatile Map<Path, StampedPack> stampedPacks = new Object2ObjectOpenHashMap<>();
+
+  /**
+   * the watcher.
+   */
+  @Nullable
+  private PackWatcher watcher;
+
+  /**
+   * closes the given {@code loader} of a candidate that is not loaded as a pack.
+   *
+   * @param loader the loader to close.
+   */
+  private static void close(@NotNull final PackLoader loader) {
+    try {
+      loader.close();
+    } catch (final IOException e) {
+      SimplePackManager.LOGGER.error(String.format("Unable to close %s", loader.getLocation()), e);
+    }
+  }
+
+  /**
+   * closes the loader of the given {@code candidate} that is not loaded as a pack.
+   * <p>
+   * the loader of a reused pack is not closed here, the pack is retired by the reload instead, since the players may
+   * still be downloading it.
+   *
+   * @param candidate the candidate to close.
+   */
+  private static void close(@NotNull final PackResolver.Candidate candidate) {
+    if (candidate.getPrevious() == null) {
+      SimplePackManager.close(candidate.getLoader());
+    }
+  }
+
+  /**
+   * checks if the given {@code directory} is the packs directory.
+   *
+   * @param directory the directory to check.
+   *
+   * @return {@code true} if the directory is the packs directory.
+   */
+  private static boolean isPacksPath(@NotNull final Path directory) {
+    return directory.toAbsolutePath().normalize().equals(SimplePackManager.PACKS_PATH.toAbsolutePath().normalize());
+  }
+
+  /**
+   * computes the stamp of the given pack {@code path} from the contents of its files.
+   *
+   * @param path the path to compute.
+   *
+   * @return the stamp, or {@code null} if the files could not be read.
+   */
+  @Nullable
+  private static String stamp(@NotNull final Path path) {
+    try {
+      return BaseEncoding.base16().lowerCase().encode(PackFingerprint.compute(path));
+    } catch (final IOException | UncheckedIOException e) {
+      SimplePackManager.LOGGER.warn("Unable to stamp {}", path, e);
+      return null;
+    }
+  }
+
   @Override
   public void close() throws IOException {
+    if (this.watcher != null) {
+      this.watcher.close();
+    }
     for (final var pack : this.packs.values()) {
       pack.close();
     }
+    RetiredPacks retiredPacks;
+    while ((retiredPacks = this.retired.poll()) != null) {
+      for (final var pack : retiredPacks.packs) {
+        pack.close();
+      }
+    }
   }
 
   @Override
   public void closeRegistration() {
     this.checkClosed();
-    final var mustAccept = (boolean) ServerConfig.FORCE_RESOURCES.getValue()
-      .orElse(false);
-    this.packInfo.set(new PackInfoPacket(Collections.emptyList(),
-      mustAccept,
-      new ObjectArrayList<>(this.packs.values().stream()
-        .filter(pack -> pack.getType() != ResourcePackType.BEHAVIOR)
-        .map(pack ->
-          new PackInfoPacket.Entry(
-            "",
-            "",
-            pack.getId().toString(), pack.getSize(),
-            pack.getVersion().toString(),
-            false,
-            false,
-            ""))
-        .collect(Collectors.toList())),
-      false));
-    this.packStack.set(new PackStackPacket(
-      Collections.emptyList(),
-      Collections.emptyList(),
-      true,
-      mustAccept,
-      "*",
-      this.packs.values().stream()
-        .filter(pack -> pack.getType() != ResourcePackType.BEHAVIOR)
-        .map(pack ->
-          new PackStackPacket.Entry(pack.getId().toString(), pack.getVersion().toString(), ""))
-        .collect(Collectors.toList())));
+    this.publish(this.packs.values());
     this.closed = true;
   }
 
+  /**
+   * closes the retired packs that are not in use anymore.
+   * <p>
+   * this method is called on every tick after the pack transfers are sent.
+   *
+   * @param inUse the predicate that checks if a pack is still being downloaded.
+   */
+  public void closeRetired(@NotNull final Predicate<Pack> inUse) {
+    if (this.retired.isEmpty()) {
+      return;
+    }
+    final var now = System.nanoTime();
+    final var iterator = this.retired.iterator();
+    while (iterator.hasNext()) {
+      final var retiredPacks = iterator.next();
+      if (now - retiredPacks.retiredAt < SimplePackManager.RETIRE_GRACE_NANOS ||
+        retiredPacks.packs.stream().anyMatch(inUse)) {
+        continue;
+      }
+      iterator.remove();
+      for (final var pack : retiredPacks.packs) {
+        try {
+          pack.close();
+        } catch (final IOException e) {
+          SimplePackManager.LOGGER.error(String.format("Unable to close %s", pack.getLoader().getLocation()), e);
+        }
+      }
+    }
+  }
+
   @NotNull
   @Override
   public Optional<PackLoader> getLoader(@NotNull final Path path) {
@@ -189,13 +323,27 @@ public final class SimplePackManager implements PackManager {
   @NotNull
   @Override
   public Optional<Pack> getPack(@NotNull final String id) {
-    return Optional.ofNullable(this.packs.get(id));
+    final var pack = this.packs.get(id);
+    if (pack != null || this.retired.isEmpty()) {
+      return Optional.ofNullable(pack);
+    }
+    return this.retired.stream()
+      .flatMap(retiredPacks -> retiredPacks.packs.stream())
+      .filter(retiredPack -> id.equals(retiredPack.getId() + "_" + retiredPack.getVersion()))
+      .findFirst();
   }
 
   @NotNull
   @Override
   public Optional<Pack> getPackByUniqueId(@NotNull final UUID uniqueId) {
-    return Optional.ofNullable(this.packsById.get(uniqueId));
+    final var pack = this.packsById.get(uniqueId);
+    if (pack != null || this.retired.isEmpty()) {
+      return Optional.ofNullable(pack);
+    }
+    return this.retired.stream()
+      .flatMap(retiredPacks -> retiredPacks.packs.stream())
+      .filter(retiredPack -> uniqueId.equals(retiredPack.getId()))
+      .findFirst();
   }
 
   @NotNull
@@ -228,76 +376,43 @@ public final class SimplePackManager implements PackManager {
     final var module = manifest.getModules().get(0);
     final var factory = this.packFactories.get(module.getType());
     Preconditions.checkNotNull(factory, "Unsupported pack type %s", module.getType());
-    this.putPack(manifest, loader, factory, module);
+    synchronized (this.packLock) {
+      final var packs = new Object2ObjectOpenHashMap<>(this.packs);
+      final var packsById = new Object2ObjectOpenHashMap<>(this.packsById);
+      final var pack = this.putPack(manifest, loader, factory, module, packs, packsById);
+      this.digest(Collections.singleton(pack));
+      final var externalPacks = new ReferenceOpenHashSet<>(this.externalPacks);
+      externalPacks.add(pack);
+      this.externalPacks = externalPacks;
+      this.packsById = packsById;
+      this.packs = packs;
+    }
   }
 
   @Override
   public void loadPacks(@NotNull final Path directory) {
     this.checkClosed();
     Preconditions.checkArgument(Files.isDirectory(directory), "%s is not a directory", directory);
-    final var loaders = new ObjectArrayList<PackLoader>();
-    try (final var stream = Files.newDirectoryStream(directory)) {
-      for (final var entry : stream) {
-        final var loader = this.getLoader(entry);
-        if (loader.isEmpty()) {
-          continue;
-        }
-        loaders.add(loader.get());
-      }
-    } catch (final IOException e) {
-      SimplePackManager.LOGGER.error("", e);
-    }
-    final var manifestMap = new Object2ObjectOpenHashMap<UUID, PackManifest>();
-    final var loaderMap = new Object2ObjectOpenHashMap<UUID, PackLoader>();
-    loaders.forEach(loader -> {
-      final var optional = this.getManifest(loader);
-      if (optional.isEmpty()) {
-        return;
-      }
-      final var manifest = optional.get();
-      final var uuid = manifest.getHeader().getUuid();
-      manifestMap.put(uuid, manifest);
-      loaderMap.put(uuid, loader);
-    });
-    loaders.clear();
-    final var missingDependencies = new ObjectArrayList<PackManifest>();
-    var missingDependency = false;
-    do {
-      missingDependency = false;
-      final var iterator = manifestMap.values().iterator();
-      while (iterator.hasNext()) {
-        final var manifest = iterator.next();
-        for (final var dependency : manifest.getDependencies()) {
-          final var uuid = dependency.getUuid();
-          if (manifestMap.containsKey(uuid) || this.packsById.containsKey(uuid)) {
-            continue;
-          }
-          // @todo #1:15m Check version.
-          iterator.remove();
-          missingDependencies.add(manifest);
-          missingDependency = true;
-          break;
-        }
-      }
-    } while (missingDependency);
-    if (!missingDependencies.isEmpty()) {
-      final var joiner = new StringJoiner(", ");
-      missingDependencies.stream()
-        .map(pack -> pack.getHeader().getName() + ":" + pack.getHeader().getVersion())
-        .forEach(joiner::add);
-      SimplePackManager.LOGGER.error("Could not load packs due to missing dependencies {}", joiner);
-    }
-    for (final var manifest : manifestMap.values()) {
-      final var loader = loaderMap.get(manifest.getHeader().getUuid());
-      final var module = manifest.getModules().get(0);
-      final var factory = this.packFactories.get(module.getType());
-      if (factory == null) {
-        SimplePackManager.LOGGER.warn("Unsupported pack type {}", module.getType());
-        continue;
+    final var start = System.nanoTime();
+    final List<Pack> loaded;
+    synchronized (this.packLock) {
+      final var packs = new Object2ObjectOpenHashMap<>(this.packs);
+      final var packsById = new Object2ObjectOpenHashMap<>(this.packsById);
+      if (SimplePackManager.isPacksPath(directory)) {
+        final var stamped = new Object2ObjectOpenHashMap<>(this.stampedPacks);
+        loaded = this.load(directory, packs, packsById, Collections.emptyMap(), stamped);
+        this.stampedPacks = stamped;
+      } else {
+        loaded = this.load(directory, packs, packsById, Collections.emptyMap(), new Object2ObjectOpenHashMap<>());
+        final var externalPacks = new ReferenceOpenHashSet<>(this.externalPacks);
+        externalPacks.addAll(loaded);
+        this.externalPacks = externalPacks;
       }
-      this.putPack(manifest, loader, factory, module);
+      this.packsById = packsById;
+      this.packs = packs;
     }
-    SimplePackManager.LOGGER.debug(TranslatedText.get(SimplePackManager.PACK_SUCCESS, manifestMap.size()));
+    SimplePackManager.LOGGER.debug(TranslatedText.get(SimplePackManager.PACK_SUCCESS, loaded.size(),
+      TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
   }
 
   @Override
@@ -313,6 +428,122 @@ public final class SimplePackManager implements PackManager {
       "The pack factory is already registered!");
   }
 
+  /**
+   * loads the packs directory again in the background and swaps the loaded packs with the current packs.
+   * <p>
+   * only the newly joining players see the new packs, the replaced packs are kept open until the players that are
+   * downloading them finish. a reload that is requested while another one is running is queued and runs once after
+   * it, so the changes that arrive during a reload are not lost.
+   *
+   * @return the loaded pack count, or a failed future if the registration is not closed.
+   */
+  @NotNull
+  public CompletableFuture<Integer> reload() {
+    if (!this.closed) {
+      return CompletableFuture.failedFuture(new IllegalStateException("PackManager registration is not closed!"));
+    }
+    final var queued = this.queuedReload.updateAndGet(current ->
+      current == null ? new CompletableFuture<>() : current);
+    this.runQueuedReload();
+    return queued;
+  }
+
+  /**
+   * starts watching the packs directory, and reloads the packs when it changes.
+   */
+  public synchronized void startWatching() {
+    if (this.watcher != null) {
+      return;
+    }
+    try {
+      this.watcher = new PackWatcher(SimplePackManager.PACKS_PATH, () -> this.reload()
+        .whenComplete((count, throwable) -> {
+          if (throwable != null) {
+            SimplePackManager.LOGGER.error("Unable to reload the packs", throwable);
+          }
+        }));
+      this.watcher.start();
+    } catch (final IOException e) {
+      SimplePackManager.LOGGER.error("Unable to watch the packs directory", e);
+    }
+  }
+
+  /**
+   * loads the packs of the given {@code directory} into the given maps.
+   *
+   * @param directory the directory to load.
+   * @param packs the packs to put.
+   * @param packsById the packs by id to put.
+   * @param previous the loaded packs by their paths, which are reused if they have not changed.
+   * @param stamped the packs by their paths to put.
+   *
+   * @return loaded packs.
+   */
+  @NotNull
+  private List<Pack> load(@NotNull final Path directory, @NotNull final Map<String, Pack> packs,
+                          @NotNull final Map<UUID, Pack> packsById, @NotNull final Map<Path, StampedPack> previous,
+                          @NotNull final Map<Path, StampedPack> stamped) {
+    final var entries = new ObjectArrayList<Path>();
+    try (final var stream = Files.newDirectoryStream(directory)) {
+      stream.forEach(entries::add);
+    } catch (final IOException e) {
+      SimplePackManager.LOGGER.error("", e);
+    }
+    final var candidates = entries.parallelStream()
+      .map(path -> this.discover(path, previous))
+      .filter(Objects::nonNull)
+      .collect(Collectors.toList());
+    final var resolver = new PackResolver(packsById);
+    for (final var candidate : candidates) {
+      final var ignored = resolver.add(candidate);
+      if (ignored != null) {
+        SimplePackManager.LOGGER.warn("Ignoring {} at {}, another version of the pack is found",
+          ignored.getName(), ignored.getLoader().getLocation());
+        SimplePackManager.close(ignored);
+      }
+    }
+    final var resolved = resolver.resolve();
+    final var rejected = resolver.getRejected();
+    if (!rejected.isEmpty()) {
+      final var joiner = new StringJoiner(", ");
+      rejected.forEach((candidate, reason) -> joiner.add(candidate.getName() + " (" + reason + ")"));
+      SimplePackManager.LOGGER.error("Could not load packs due to unresolved dependencies {}", joiner);
+      rejected.keySet().forEach(SimplePackManager::close);
+    }
+    final var loaded = new ObjectArrayList<Pack>();
+    final var created = new ObjectArrayList<Pack>();
+    for (final var candidate : resolved) {
+      final var manifest = candidate.getManifest();
+      var pack = candidate.getPrevious();
+      if (pack == null) {
+        final var module = manifest.getModules().get(0);
+        final var factory = this.packFactories.get(module.getType());
+        if (factory == null) {
+          SimplePackManager.LOGGER.warn("Unsupported pack type {}", module.getType());
+          SimplePackManager.close(candidate);
+          continue;
+        }
+        pack = this.putPack(manifest, candidate.getLoader(), factory, module, packs, packsById);
+        created.add(pack);
+      } else {
+        final var uuid = manifest.getHeader().getUuid();
+        packs.put(uuid + "_" + manifest.getHeader().getVersion(), pack);
+        packsById.put(uuid, pack);
+      }
+      loaded.add(pack);
+      final var stamp = candidate.getStamp();
+      if (stamp != null) {
+        stamped.put(candidate.getLoader().getLocation(), new StampedPack(pack, stamp));
+      }
+      if (SimplePackManager.LOGGER.isDebugEnabled()) {
+        SimplePackManager.LOGGER.debug("Discovered {} in {} ms", candidate.getName(),
+          TimeUnit.NANOSECONDS.toMillis(candidate.getElapsedNanos()));
+      }
+    }
+    this.digest(created);
+    return loaded;
+  }
+
   /**
    * reloads packs.
    */
@@ -342,19 +573,242 @@ public final class SimplePackManager implements PackManager {
   }
 
   /**
-   * puts the given manifest into the {@link #packs} and {@link #packsById}.
+   * computes the digests of the given {@code packs} in parallel, or reads them from the {@link #digestCache}.
+   *
+   * @param packs the packs to digest.
+   */
+  private void digest(@NotNull final Collection<Pack> packs) {
+    final var futures = packs.stream()
+      .filter(ResourcePack.class::isInstance)
+      .map(ResourcePack.class::cast)
+      .map(pack -> CompletableFuture.runAsync(() -> {
+        try {
+          pack.setDigest(this.digestCache.get(pack.getLoader().getPreparedFile().join()));
+        } catch (final IOException | CompletionException e) {
+          SimplePackManager.LOGGER.error(String.format("Unable to hash %s", pack.getLoader().getLocation()), e);
+        }
+      }))
+      .toArray(CompletableFuture[]::new);
+    CompletableFuture.allOf(futures).join();
+    this.digestCache.save();
+  }
+
+  /**
+   * opens the pack at the given {@code path} and parses its manifest, or reuses the loaded pack if its files have not
+   * changed.
+   * <p>
+   * this runs on the fork-join pool, so the packs are opened and parsed in parallel.
+   *
+   * @param path the path to discover.
+   * @param previous the loaded packs by their paths.
+   *
+   * @return a candidate to resolve, or {@code null} if the path is not a pack.
+   */
+  @Nullable
+  private PackResolver.Candidate discover(@NotNull final Path path, @NotNull final Map<Path, StampedPack> previous) {
+    final var start = System.nanoTime();
+    final var stamp = SimplePackManager.stamp(path);
+    final var stampedPack = previous.get(path);
+    if (stamp != null && stampedPack != null && stamp.equals(stampedPack.stamp)) {
+      final var pack = stampedPack.pack;
+      return new PackResolver.Candidate(pack.getLoader(), pack.getManifest(), System.nanoTime() - start, stamp,
+        pack);
+    }
+    final var loader = this.getLoader(path);
+    if (loader.isEmpty()) {
+      return null;
+    }
+    final var manifest = this.getManifest(loader.get());
+    if (manifest.isEmpty()) {
+      SimplePackManager.close(loader.get());
+      return null;
+    }
+    return new PackResolver.Candidate(loader.get(), manifest.get(), System.nanoTime() - start, stamp, null);
+  }
+
+  /**
+   * pre-encodes the pack info and the pack stack packets of the given {@code packs} and publishes them to the newly
+   * joining players.
+   *
+   * @param packs the packs to publish.
+   */
+  private void publish(@NotNull final Collection<Pack> packs) {
+    final var mustAccept = (boolean) ServerConfig.FORCE_RESOURCES.getValue()
+      .orElse(false);
+    this.packInfo.set(PreEncodedPacket.of(new PackInfoPacket(Collections.emptyList(),
+      mustAccept,
+      new ObjectArrayList<>(packs.stream()
+        .filter(pack -> pack.getType() != ResourcePackType.BEHAVIOR)
+        .map(pack ->
+          new PackInfoPacket.Entry(
+            "",
+            "",
+            pack.getId().toString(), pack.getSize(),
+            pack.getVersion().toString(),
+            false,
+            false,
+            ""))
+        .collect(Collectors.toList())),
+      false)));
+    this.packStack.set(PreEncodedPacket.of(new PackStackPacket(
+      Collections.emptyList(),
+      Collections.emptyList(),
+      true,
+      mustAccept,
+      "*",
+      packs.stream()
+        .filter(pack -> pack.getType() != ResourcePackType.BEHAVIOR)
+        .map(pack ->
+          new PackStackPacket.Entry(pack.getId().toString(), pack.getVersion().toString(), ""))
+        .collect(Collectors.toList()))));
+  }
+
+  /**
+   * puts the given manifest into the given {@code packs} and {@code packsById}.
    *
    * @param manifest the manifest to put.
    * @param loader the loader to put.
    * @param factory the factory to put.
    * @param module the module to put.
+   * @param packs the packs to put.
+   * @param packsById the packs by id to put.
+   *
+   * @return the created pack.
    */
-  private void putPack(@NotNull final PackManifest manifest, @NotNull final PackLoader loader, @NotNull final Pack.Factory factory,
-                       @NotNull final PackManifest.Module module) {
+  @NotNull
+  private Pack putPack(@NotNull final PackManifest manifest, @NotNull final PackLoader loader,
+                       @NotNull final Pack.Factory factory, @NotNull final PackManifest.Module module,
+                       @NotNull final Map<String, Pack> packs, @NotNull final Map<UUID, Pack> packsById) {
     final var uuid = manifest.getHeader().getUuid();
     final var pack = factory.create(loader, manifest, module);
-    this.packs.put(uuid + "_" + manifest.getHeader().getVersion(), pack);
-    this.packsById.put(uuid, pack);
+    packs.put(uuid + "_" + manifest.getHeader().getVersion(), pack);
+    packsById.put(uuid, pack);
     loader.getPreparedFile();
+    return pack;
+  }
+
+  /**
+   * loads the packs directory and swaps the loaded packs with the current packs.
+   * <p>
+   * the packs whose files have not changed are reused as they are, only the changed packs are opened, digested and
+   * retired. the packs that are loaded from outside of the packs directory are carried over unless a pack in the
+   * directory replaces them.
+   *
+   * @return the loaded pack count.
+   */
+  private int reload0() {
+    final var start = System.nanoTime();
+    final List<Pack> loaded;
+    synchronized (this.packLock) {
+      final var packs = new Object2ObjectOpenHashMap<String, Pack>();
+      final var packsById = new Object2ObjectOpenHashMap<UUID, Pack>();
+      final var stamped = new Object2ObjectOpenHashMap<Path, StampedPack>();
+      for (final var pack : this.externalPacks) {
+        packs.put(pack.getId() + "_" + pack.getVersion(), pack);
+        packsById.put(pack.getId(), pack);
+      }
+      loaded = this.load(SimplePackManager.PACKS_PATH, packs, packsById, this.stampedPacks, stamped);
+      final var kept = new ReferenceOpenHashSet<>(packs.values());
+      final var replaced = this.packs.values().stream()
+        .filter(pack -> !kept.contains(pack))
+        .collect(Collectors.toList());
+      final var externalPacks = new ReferenceOpenHashSet<Pack>();
+      for (final var pack : this.externalPacks) {
+        if (kept.contains(pack)) {
+          externalPacks.add(pack);
+        }
+      }
+      this.externalPacks = externalPacks;
+      this.packsById = packsById;
+      this.packs = packs;
+      this.stampedPacks = stamped;
+      this.publish(packs.values());
+      this.retired.add(new RetiredPacks(replaced, System.nanoTime()));
+    }
+    SimplePackManager.LOGGER.debug(TranslatedText.get(SimplePackManager.PACK_SUCCESS, loaded.size(),
+      TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+    return loaded.size();
+  }
+
+  /**
+   * runs the {@link #queuedReload} in the background if there is one and no reload is running.
+   * <p>
+   * the running reload calls this again when it finishes, so a reload that is queued meanwhile is not left behind.
+   */
+  private void runQueuedReload() {
+    while (this.queuedReload.get() != null && this.reloading.compareAndSet(false, true)) {
+      final var queued = this.queuedReload.getAndSet(null);
+      if (queued == null) {
+        this.reloading.set(false);
+        continue;
+      }
+      CompletableFuture.supplyAsync(this::reload0).whenComplete((count, throwable) -> {
+        this.reloading.set(false);
+        if (throwable == null) {
+          queued.complete(count);
+        } else {
+          queued.completeExceptionally(throwable);
+        }
+        this.runQueuedReload();
+      });
+      return;
+    }
+  }
+
+  /**
+   * a class that represents the packs which are replaced by a reload.
+   */
+  private static final class RetiredPacks {
+
+    /**
+     * the packs.
+     */
+    @NotNull
+    private final Collection<Pack> packs;
+
+    /**
+     * the nano time when the packs are replaced.
+     */
+    private final long retiredAt;
+
+    /**
+     * ctor.
+     *
+     * @param packs the packs.
+     * @param retiredAt the nano time when the packs are replaced.
+     */
+    private RetiredPacks(@NotNull final Collection<Pack> packs, final long retiredAt) {
+      this.packs = packs;
+      this.retiredAt = retiredAt;
+    }
+  }
+
+  /**
+   * a class that represents the loaded packs with the stamps of their files.
+   */
+  private static final class StampedPack {
+
+    /**
+     * the pack.
+     */
+    @NotNull
+    private final Pack pack;
+
+    /**
+     * the stamp.
+     */
+    @NotNull
+    private final String stamp;
+
+    /**
+     * ctor.
+     *
+     * @param pack the pack.
+     * @param stamp the stamp.
+     */
+    private StampedPack(@NotNull final Pack pack, @NotNull final String stamp) {
+      this.pack = pack;
+      this.stamp = stamp;
+    }
   }
 }
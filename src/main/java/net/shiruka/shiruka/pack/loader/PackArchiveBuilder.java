@@ -0,0 +1,586 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.pack.loader;
+
+import com.google.common.io.BaseEncoding;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import net.shiruka.shiruka.pack.PackFingerprint;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that builds reproducible zip archives from directory packs and caches them by a fingerprint of the
+ * directory tree.
+ * <p>
+ * the entries are sorted by name, carry a fixed timestamp and are streamed one by one into the archive file, so the
+ * same directory always produces the same archive and the same hash without holding the files in memory, and an
+ * unchanged directory is not compressed again on restart.
+ */
+final class PackArchiveBuilder {
+
+  /**
+   * the size of the read and the deflate buffers.
+   */
+  private static final int BUFFER_SIZE = 65536;
+
+  /**
+   * the size of the central directory headers without the name.
+   */
+  private static final int CENTRAL_HEADER_SIZE = 46;
+
+  /**
+   * the fixed dos time of the entries, 1980-01-01 00:00.
+   */
+  private static final int DOS_TIME = 0x00210000;
+
+  /**
+   * the size of the end of central directory record.
+   */
+  private static final int END_HEADER_SIZE = 22;
+
+  /**
+   * the length of the fingerprint in the archive file names.
+   */
+  private static final int FINGERPRINT_LENGTH = 8;
+
+  /**
+   * the hex encoding.
+   */
+  private static final BaseEncoding HEX = BaseEncoding.base16().lowerCase();
+
+  /**
+   * the size of the local file headers without the name.
+   */
+  private static final int LOCAL_HEADER_SIZE = 30;
+
+  /**
+   * the logger.
+   */
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  /**
+   * the deflated compression method.
+   */
+  private static final int METHOD_DEFLATED = 8;
+
+  /**
+   * the stored compression method.
+   */
+  private static final int METHOD_STORED = 0;
+
+  /**
+   * the length of the source path hash in the archive file names.
+   */
+  private static final int SOURCE_HASH_LENGTH = 4;
+
+  /**
+   * the maximum value of the unsigned int fields.
+   */
+  private static final long UNSIGNED_INT_MAX = 0xFFFFFFFFL;
+
+  /**
+   * the maximum value of the unsigned short fields.
+   */
+  private static final int UNSIGNED_SHORT_MAX = 0xFFFF;
+
+  /**
+   * the utf-8 general purpose flag.
+   */
+  private static final int UTF8_FLAG = 0x0800;
+
+  /**
+   * the zip version that is needed to extract the entries.
+   */
+  private static final int VERSION = 20;
+
+  /**
+   * ctor.
+   */
+  private PackArchiveBuilder() {
+  }
+
+  /**
+   * builds the archive of the given {@code directory}, or reuses the cached one if the directory has not changed.
+   *
+   * @param directory the directory to build.
+   * @param cache the cache directory to put the archive.
+   * @param level the compression level.
+   *
+   * @return the archive path.
+   *
+   * @throws IOException if something went wrong when reading the directory or writing the archive.
+   */
+  @NotNull
+  static Path build(@NotNull final Path directory, @NotNull final Path cache, final int level) throws IOException {
+    final var files = PackArchiveBuilder.list(directory);
+    final var prefix = PackArchiveBuilder.prefix(directory);
+    final var fingerprint = PackArchiveBuilder.fingerprint(directory, level);
+    final var target = cache.resolve(prefix + fingerprint + ".zip");
+    if (Files.isRegularFile(target)) {
+      PackArchiveBuilder.LOGGER.debug("Reusing the cached archive {} for {}", target, directory);
+      return target;
+    }
+    Files.createDirectories(cache);
+    final var start = System.nanoTime();
+    final var temp = Files.createTempFile(cache, prefix, ".tmp");
+    try {
+      try (final var channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+        PackArchiveBuilder.write(channel, directory, files, level);
+      }
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    PackArchiveBuilder.clean(cache, prefix, target);
+    PackArchiveBuilder.LOGGER.debug("Built the archive {} for {} in {} ms", target, directory,
+      (System.nanoTime() - start) / 1_000_000L);
+    return target;
+  }
+
+  /**
+   * deletes the archives that are built from the older versions of the directory.
+   *
+   * @param cache the cache directory to clean.
+   * @param prefix the archive name prefix of the directory.
+   * @param current the current archive to keep.
+   */
+  private static void clean(@NotNull final Path cache, @NotNull final String prefix, @NotNull final Path current) {
+    try (final var stream = Files.newDirectoryStream(cache, prefix + "*.zip")) {
+      for (final var file : stream) {
+        final var fingerprint = file.getFileName().toString().substring(prefix.length());
+        if (!file.equals(current) && fingerprint.length() == PackArchiveBuilder.FINGERPRINT_LENGTH * 2 + 4) {
+          Files.deleteIfExists(file);
+        }
+      }
+    } catch (final IOException e) {
+      PackArchiveBuilder.LOGGER.warn("Unable to clean the archive cache {}", cache, e);
+    }
+  }
+
+  /**
+   * deflates the given {@code file} into the given {@code channel}.
+   *
+   * @param channel the channel to write.
+   * @param file the file to deflate.
+   * @param deflater the deflater to use.
+   * @param crc the crc to update with the uncompressed data.
+   * @param input the read buffer.
+   * @param output the deflate buffer.
+   *
+   * @return the uncompressed size and the compressed size.
+   *
+   * @throws IOException if something went wrong when reading the file or writing the channel.
+   */
+  private static long[] deflate(@NotNull final FileChannel channel, @NotNull final Path file,
+                                @NotNull final Deflater deflater, @NotNull final CRC32 crc, final byte[] input,
+                                final byte[] output) throws IOException {
+    deflater.reset();
+    var size = 0L;
+    var compressed = 0L;
+    try (final var in = Files.newInputStream(file)) {
+      int read;
+      while ((read = in.read(input)) != -1) {
+        crc.update(input, 0, read);
+        size += read;
+        deflater.setInput(input, 0, read);
+        while (!deflater.needsInput()) {
+          compressed += PackArchiveBuilder.drain(channel, deflater, output);
+        }
+      }
+    }
+    deflater.finish();
+    while (!deflater.finished()) {
+      compressed += PackArchiveBuilder.drain(channel, deflater, output);
+    }
+    return new long[]{size, compressed};
+  }
+
+  /**
+   * creates a sha-256 message digest.
+   *
+   * @return a new message digest.
+   */
+  @NotNull
+  private static MessageDigest digest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * deflates the pending data of the given {@code deflater} into the given {@code channel}.
+   *
+   * @param channel the channel to write.
+   * @param deflater the deflater to drain.
+   * @param output the deflate buffer.
+   *
+   * @return the written byte count.
+   *
+   * @throws IOException if something went wrong when writing the channel.
+   */
+  private static int drain(@NotNull final FileChannel channel, @NotNull final Deflater deflater, final byte[] output)
+    throws IOException {
+    final var length = deflater.deflate(output);
+    PackArchiveBuilder.write(channel, ByteBuffer.wrap(output, 0, length));
+    return length;
+  }
+
+  /**
+   * computes the fingerprint of the directory tree from the names and the contents of the files.
+   *
+   * @param directory the directory to compute.
+   * @param level the compression level.
+   *
+   * @return the fingerprint as a hex string.
+   *
+   * @throws IOException if something went wrong when reading the files.
+   */
+  @NotNull
+  private static String fingerprint(@NotNull final Path directory, final int level) throws IOException {
+    final var digest = PackArchiveBuilder.digest();
+    digest.update((byte) level);
+    digest.update(PackFingerprint.compute(directory));
+    return PackArchiveBuilder.HEX.encode(digest.digest(), 0, PackArchiveBuilder.FINGERPRINT_LENGTH);
+  }
+
+  /**
+   * creates a little-endian header buffer that starts with the given {@code signature}.
+   *
+   * @param signature the signature to put.
+   * @param size the header size.
+   *
+   * @return a new header buffer.
+   */
+  @NotNull
+  private static ByteBuffer header(final int signature, final int size) {
+    return ByteBuffer.allocate(size)
+      .order(ByteOrder.LITTLE_ENDIAN)
+      .putInt(signature);
+  }
+
+  /**
+   * lists the regular files of the given {@code directory} recursively, sorted by their entry names.
+   *
+   * @param directory the directory to list.
+   *
+   * @return sorted files, relative to the directory.
+   *
+   * @throws IOException if something went wrong when walking the directory.
+   */
+  @NotNull
+  private static List<Path> list(@NotNull final Path directory) throws IOException {
+    try (final var stream = Files.walk(directory)) {
+      return stream
+        .filter(Files::isRegularFile)
+        .map(directory::relativize)
+        .sorted(Comparator.comparing(PackArchiveBuilder::name))
+        .collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * obtains the entry name of the given relative {@code file}.
+   *
+   * @param file the file to obtain.
+   *
+   * @return the entry name with forward slashes.
+   */
+  @NotNull
+  private static String name(@NotNull final Path file) {
+    final var separator = file.getFileSystem().getSeparator();
+    return file.toString().replace(separator, "/");
+  }
+
+  /**
+   * obtains the archive name prefix of the given {@code directory}.
+   * <p>
+   * the prefix carries a hash of the absolute directory path, so the directories that have the same name do not share
+   * the prefix and do not clean the archives of each other.
+   *
+   * @param directory the directory to obtain.
+   *
+   * @return the archive name prefix.
+   */
+  @NotNull
+  private static String prefix(@NotNull final Path directory) {
+    final var name = directory.getFileName().toString().replaceAll("[^A-Za-z0-9._-]", "_");
+    final var source = PackArchiveBuilder.digest()
+      .digest(directory.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8));
+    return name + "-" + PackArchiveBuilder.HEX.encode(source, 0, PackArchiveBuilder.SOURCE_HASH_LENGTH) + "-";
+  }
+
+  /**
+   * copies the given {@code file} into the given {@code channel} without compression.
+   *
+   * @param channel the channel to write.
+   * @param file the file to copy.
+   * @param crc the crc to update with the data.
+   * @param input the read buffer.
+   *
+   * @return the copied byte count.
+   *
+   * @throws IOException if something went wrong when reading the file or writing the channel.
+   */
+  private static long store(@NotNull final FileChannel channel, @NotNull final Path file, @NotNull final CRC32 crc,
+                            final byte[] input) throws IOException {
+    var size = 0L;
+    try (final var in = Files.newInputStream(file)) {
+      int read;
+      while ((read = in.read(input)) != -1) {
+        crc.update(input, 0, read);
+        size += read;
+        PackArchiveBuilder.write(channel, ByteBuffer.wrap(input, 0, read));
+      }
+    }
+    return size;
+  }
+
+  /**
+   * writes the given {@code files} as a zip archive.
+   *
+   * @param channel the channel to write.
+   * @param directory the directory of the files.
+   * @param files the sorted files to write, relative to the directory.
+   * @param level the compression level.
+   *
+   * @throws IOException if something went wrong when reading or writing, or the archive needs zip64.
+   */
+  private static void write(@NotNull final FileChannel channel, @NotNull final Path directory,
+                            @NotNull final List<Path> files, final int level) throws IOException {
+    if (files.size() > PackArchiveBuilder.UNSIGNED_SHORT_MAX) {
+      throw new IOException("Too many files for a pack archive!");
+    }
+    final var entries = new ObjectArrayList<Entry>(files.size());
+    final var deflater = level == 0 ? null : new Deflater(level, true);
+    final var input = new byte[PackArchiveBuilder.BUFFER_SIZE];
+    final var output = new byte[PackArchiveBuilder.BUFFER_SIZE];
+    try {
+      for (final var file : files) {
+        entries.add(PackArchiveBuilder.writeEntry(channel, directory, file, deflater, input, output));
+      }
+    } finally {
+      if (deflater != null) {
+        deflater.end();
+      }
+    }
+    final var directoryOffset = channel.position();
+    for (final var entry : entries) {
+      final var header = PackArchiveBuilder.header(0x02014b50,
+        PackArchiveBuilder.CENTRAL_HEADER_SIZE + entry.name.length)
+        .putShort((short) PackArchiveBuilder.VERSION)
+        .putShort((short) PackArchiveBuilder.VERSION)
+        .putShort((short) PackArchiveBuilder.UTF8_FLAG)
+        .putShort((short) entry.method)
+        .putInt(PackArchiveBuilder.DOS_TIME)
+        .putInt((int) entry.crc)
+        .putInt((int) entry.compressedSize)
+        .putInt((int) entry.size)
+        .putShort((short) entry.name.length)
+        .putShort((short) 0)
+        .putShort((short) 0)
+        .putShort((short) 0)
+        .putShort((short) 0)
+        .putInt(0)
+        .putInt((int) entry.offset)
+        .put(entry.name);
+      PackArchiveBuilder.write(channel, header.flip());
+    }
+    final var offset = channel.position();
+    if (offset > PackArchiveBuilder.UNSIGNED_INT_MAX) {
+      throw new IOException("Pack archive is too big!");
+    }
+    final var end = PackArchiveBuilder.header(0x06054b50, PackArchiveBuilder.END_HEADER_SIZE)
+      .putShort((short) 0)
+      .putShort((short) 0)
+      .putShort((short) entries.size())
+      .putShort((short) entries.size())
+      .putInt((int) (offset - directoryOffset))
+      .putInt((int) directoryOffset)
+      .putShort((short) 0);
+    PackArchiveBuilder.write(channel, end.flip());
+  }
+
+  /**
+   * writes the given {@code buffer} fully into the given {@code channel}.
+   *
+   * @param channel the channel to write.
+   * @param buffer the buffer to write.
+   *
+   * @throws IOException if something went wrong when writing.
+   */
+  private static void write(@NotNull final FileChannel channel, @NotNull final ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * writes the given {@code file} as an archive entry at the current position of the given {@code channel}.
+   * <p>
+   * the data is streamed first and the local header is written in front of it afterwards, since the crc and the sizes
+   * are known only after the file is read. if the deflated data is not smaller than the file, the entry is truncated
+   * and the file is stored instead.
+   *
+   * @param channel the channel to write.
+   * @param directory the directory of the file.
+   * @param file the file to write, relative to the directory.
+   * @param deflater the deflater to use, or {@code null} to store the file.
+   * @param input the read buffer.
+   * @param output the deflate buffer.
+   *
+   * @return the written entry.
+   *
+   * @throws IOException if something went wrong when reading or writing, or the archive needs zip64.
+   */
+  @NotNull
+  private static Entry writeEntry(@NotNull final FileChannel channel, @NotNull final Path directory,
+                                  @NotNull final Path file, @Nullable final Deflater deflater, final byte[] input,
+                                  final byte[] output) throws IOException {
+    final var name = PackArchiveBuilder.name(file).getBytes(StandardCharsets.UTF_8);
+    final var source = directory.resolve(file);
+    final var offset = channel.position();
+    final var dataOffset = offset + PackArchiveBuilder.LOCAL_HEADER_SIZE + name.length;
+    channel.position(dataOffset);
+    final var crc = new CRC32();
+    var method = PackArchiveBuilder.METHOD_STORED;
+    long size;
+    long compressedSize;
+    if (deflater == null) {
+      size = PackArchiveBuilder.store(channel, source, crc, input);
+      compressedSize = size;
+    } else {
+      final var sizes = PackArchiveBuilder.deflate(channel, source, deflater, crc, input, output);
+      size = sizes[0];
+      compressedSize = sizes[1];
+      if (compressedSize < size) {
+        method = PackArchiveBuilder.METHOD_DEFLATED;
+      } else {
+        channel.truncate(dataOffset);
+        channel.position(dataOffset);
+        crc.reset();
+        size = PackArchiveBuilder.store(channel, source, crc, input);
+        compressedSize = size;
+      }
+    }
+    if (size > PackArchiveBuilder.UNSIGNED_INT_MAX || channel.position() > PackArchiveBuilder.UNSIGNED_INT_MAX) {
+      throw new IOException("Pack archive is too big!");
+    }
+    final var header = PackArchiveBuilder.header(0x04034b50, PackArchiveBuilder.LOCAL_HEADER_SIZE + name.length)
+      .putShort((short) PackArchiveBuilder.VERSION)
+      .putShort((short) PackArchiveBuilder.UTF8_FLAG)
+      .putShort((short) method)
+      .putInt(PackArchiveBuilder.DOS_TIME)
+      .putInt((int) crc.getValue())
+      .putInt((int) compressedSize)
+      .putInt((int) size)
+      .putShort((short) name.length)
+      .putShort((short) 0)
+      .put(name)
+      .flip();
+    var position = offset;
+    while (header.hasRemaining()) {
+      position += channel.write(header, position);
+    }
+    return new Entry(name, method, crc.getValue(), size, compressedSize, offset);
+  }
+
+  /**
+   * a class that represents written archive entries.
+   */
+  private static final class Entry {
+
+    /**
+     * the compressed size.
+     */
+    private final long compressedSize;
+
+    /**
+     * the crc32 of the uncompressed data.
+     */
+    private final long crc;
+
+    /**
+     * the compression method.
+     */
+    private final int method;
+
+    /**
+     * the utf-8 encoded name.
+     */
+    private final byte[] name;
+
+    /**
+     * the offset of the local header.
+     */
+    private final long offset;
+
+    /**
+     * the uncompressed size.
+     */
+    private final long size;
+
+    /**
+     * ctor.
+     *
+     * @param name the name.
+     * @param method the method.
+     * @param crc the crc.
+     * @param size the size.
+     * @param compressedSize the compressed size.
+     * @param offset the offset.
+     */
+    private Entry(final byte[] name, final int method, final long crc, final long size, final long compressedSize,
+                  final long offset) {
+      this.name = name;
+      this.method = method;
+      this.crc = crc;
+      this.size = size;
+      this.compressedSize = compressedSize;
+      this.offset = offset;
+    }
+  }
+}
@@ -25,20 +25,19 @@
 
 package net.shiruka.shiruka.pack.loader;
 
-import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.zip.Deflater;
 import net.shiruka.api.pack.PackLoader;
+import net.shiruka.shiruka.ShirukaMain;
+import net.shiruka.shiruka.config.ServerConfig;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -53,9 +52,9 @@ public final class RplDirectory implements PackLoader {
   public static final Factory FACTORY = new DirectoryFactory();
 
   /**
-   * the temp files.
+   * the cache directory of the built archives.
    */
-  private static final List<Path> TEMP_FILES = new ObjectArrayList<>();
+  private static final Path CACHE_PATH = ShirukaMain.HOME_PATH.resolve("cache").resolve("packs");
 
   /**
    * the path.
@@ -94,8 +93,8 @@ public final class RplDirectory implements PackLoader {
           consumer.accept(this.path.relativize(entry));
         }
       }
-    } catch (final IOException ignored) {
-      // ignored.
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
     }
   }
 
@@ -113,26 +112,13 @@ public final class RplDirectory implements PackLoader {
 
   @NotNull
   @Override
-  public CompletableFuture<Path> getPreparedFile() {
+  public synchronized CompletableFuture<Path> getPreparedFile() {
     if (this.preparedFile == null) {
+      final var level = Math.max(Deflater.DEFAULT_COMPRESSION, Math.min(Deflater.BEST_COMPRESSION,
+        ServerConfig.PACK_COMPRESSION_LEVEL.getValue().orElse(Deflater.DEFAULT_COMPRESSION)));
       this.preparedFile = CompletableFuture.supplyAsync(() -> {
         try {
-          final var temp = Files.createTempFile("temp", String.valueOf(System.currentTimeMillis()));
-          try (final var out = Files.newOutputStream(temp);
-               final var zipOut = new ZipOutputStream(out)) {
-            this.forEachIn(Paths.get(""), true, entry -> {
-              try {
-                final var zipEntry = new ZipEntry(entry.toString());
-                zipOut.putNextEntry(zipEntry);
-                Files.copy(entry, zipOut);
-                zipOut.closeEntry();
-              } catch (final IOException ignored) {
-                // ignored.
-              }
-            });
-          }
-          RplDirectory.TEMP_FILES.add(temp);
-          return temp;
+          return PackArchiveBuilder.build(this.path, RplDirectory.CACHE_PATH, level);
         } catch (final IOException e) {
           throw new CompletionException(e);
         }
@@ -155,13 +141,7 @@ public final class RplDirectory implements PackLoader {
 
   @Override
   public void shutdown() {
-    RplDirectory.TEMP_FILES.forEach(temp -> {
-      try {
-        Files.deleteIfExists(temp);
-      } catch (final IOException ignored) {
-        // ignored.
-      }
-    });
+    // ignored, the built archives are kept in the cache for the next start.
   }
 
   /**
@@ -30,11 +30,9 @@ import java.io.InputStream;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
-import java.nio.file.Paths;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
-import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import net.shiruka.api.pack.PackLoader;
 import org.apache.logging.log4j.LogManager;
@@ -52,6 +50,12 @@ public final class RplZip implements PackLoader {
    */
   public static final Factory FACTORY = new ZipFactory();
 
+  /**
+   * the directory index.
+   */
+  @NotNull
+  private final ZipIndex index;
+
   /**
    * the path.
    */
@@ -79,6 +83,7 @@ public final class RplZip implements PackLoader {
   private RplZip(@NotNull final Path path, @NotNull final ZipFile zipFile) {
     this.path = path;
     this.zipFile = zipFile;
+    this.index = new ZipIndex(zipFile);
   }
 
   /**
@@ -99,23 +104,13 @@ public final class RplZip implements PackLoader {
 
   @Override
   public void forEachIn(@NotNull final Path path, final boolean recurse, @NotNull final Consumer<Path> consumer) {
-    final var entries = this.zipFile.entries();
-    while (entries.hasMoreElements()) {
-      final var entry = entries.nextElement();
-      final var entryPath = Paths.get(entry.getName());
-      if (entryPath.getParent().equals(path)) {
-        consumer.accept(entryPath);
-      }
-      if (entry.isDirectory()) {
-        this.forEachIn(entryPath, true, consumer);
-      }
-    }
+    this.index.forEachIn(path, recurse, consumer);
   }
 
   @NotNull
   @Override
   public Optional<InputStream> getAsset(@NotNull final Path path) throws IOException {
-    final var entry = this.entry(path);
+    final var entry = this.index.getFile(path);
     if (entry == null) {
       return Optional.empty();
     }
@@ -139,14 +134,12 @@ public final class RplZip implements PackLoader {
 
   @Override
   public boolean hasAsset(@NotNull final Path path) {
-    final var entry = this.entry(path);
-    return entry != null && !entry.isDirectory();
+    return this.index.getFile(path) != null;
   }
 
   @Override
   public boolean hasFolder(@NotNull final Path path) {
-    final var entry = this.entry(path);
-    return entry != null && entry.isDirectory();
+    return this.index.hasFolder(path);
   }
 
   @Override
@@ -154,18 +147,6 @@ public final class RplZip implements PackLoader {
     // ignored.
   }
 
-  /**
-   * obtains the zip entry.
-   *
-   * @param path the path to get.
-   *
-   * @return zip entry.
-   */
-  @Nullable
-  private ZipEntry entry(@NotNull final Path path) {
-    return this.zipFile.getEntry(path.toString());
-  }
-
   /**
    * a class that represents zip pack loader factories.
    */
@@ -0,0 +1,206 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.pack.loader;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents the directory tree of zip files, which is built once when the zip file is opened.
+ * <p>
+ * folders that have no entries of their own in the archive are still indexed from the paths of their files, so every
+ * lookup and listing is a single hash lookup instead of a scan of the central directory.
+ * <p>
+ * the index is immutable after it is built, so it can be read from any thread.
+ */
+final class ZipIndex {
+
+  /**
+   * the root folder key.
+   */
+  private static final String ROOT = "";
+
+  /**
+   * the separator of the entry names.
+   */
+  private static final char SEPARATOR = '/';
+
+  /**
+   * the children paths by the folder keys.
+   */
+  private final Map<String, List<Path>> children = new Object2ObjectOpenHashMap<>();
+
+  /**
+   * the file entries by the file keys.
+   */
+  private final Map<String, ZipEntry> files = new Object2ObjectOpenHashMap<>();
+
+  /**
+   * ctor.
+   *
+   * @param zipFile the zip file to index.
+   */
+  ZipIndex(@NotNull final ZipFile zipFile) {
+    this.children.put(ZipIndex.ROOT, new ObjectArrayList<>());
+    final var entries = zipFile.entries();
+    while (entries.hasMoreElements()) {
+      final var entry = entries.nextElement();
+      final var key = ZipIndex.normalize(entry.getName());
+      if (key.isEmpty()) {
+        continue;
+      }
+      if (entry.isDirectory()) {
+        this.addFolder(key);
+      } else if (this.files.putIfAbsent(key, entry) == null) {
+        this.addChild(key);
+      }
+    }
+  }
+
+  /**
+   * obtains the key of the given {@code path}.
+   *
+   * @param path the path to obtain.
+   *
+   * @return the path with forward slashes, without leading and trailing slashes.
+   */
+  @NotNull
+  static String key(@NotNull final Path path) {
+    final var separator = path.getFileSystem().getSeparator();
+    return ZipIndex.normalize(path.toString().replace(separator, String.valueOf(ZipIndex.SEPARATOR)));
+  }
+
+  /**
+   * normalizes the given entry {@code name}.
+   *
+   * @param name the name to normalize.
+   *
+   * @return the name without leading and trailing slashes.
+   */
+  @NotNull
+  private static String normalize(@NotNull final String name) {
+    var start = 0;
+    var end = name.length();
+    while (start < end && name.charAt(start) == ZipIndex.SEPARATOR) {
+      start++;
+    }
+    while (end > start && name.charAt(end - 1) == ZipIndex.SEPARATOR) {
+      end--;
+    }
+    return name.substring(start, end);
+  }
+
+  /**
+   * obtains the parent key of the given {@code key}.
+   *
+   * @param key the key to obtain.
+   *
+   * @return parent key.
+   */
+  @NotNull
+  private static String parent(@NotNull final String key) {
+    final var index = key.lastIndexOf(ZipIndex.SEPARATOR);
+    return index == -1 ? ZipIndex.ROOT : key.substring(0, index);
+  }
+
+  /**
+   * runs the given {@code consumer} for the children of the given folder.
+   *
+   * @param path the folder to list.
+   * @param recurse the recurse to list the sub folders instead of passing them into the consumer.
+   * @param consumer the consumer to run.
+   */
+  void forEachIn(@NotNull final Path path, final boolean recurse, @NotNull final Consumer<Path> consumer) {
+    final var children = this.children.get(ZipIndex.key(path));
+    if (children == null) {
+      return;
+    }
+    for (final var child : children) {
+      if (recurse && this.children.containsKey(ZipIndex.key(child))) {
+        this.forEachIn(child, true, consumer);
+      } else {
+        consumer.accept(child);
+      }
+    }
+  }
+
+  /**
+   * obtains the file entry of the given {@code path}.
+   *
+   * @param path the path to obtain.
+   *
+   * @return file entry, or {@code null} if the path is not a file.
+   */
+  @Nullable
+  ZipEntry getFile(@NotNull final Path path) {
+    return this.files.get(ZipIndex.key(path));
+  }
+
+  /**
+   * checks if the given {@code path} is a folder.
+   *
+   * @param path the path to check.
+   *
+   * @return {@code true} if the path is a folder.
+   */
+  boolean hasFolder(@NotNull final Path path) {
+    return this.children.containsKey(ZipIndex.key(path));
+  }
+
+  /**
+   * adds the given key into the children of its parent folder, and indexes the parent folders that are missing.
+   *
+   * @param key the key to add.
+   */
+  private void addChild(@NotNull final String key) {
+    final var parent = ZipIndex.parent(key);
+    this.addFolder(parent);
+    this.children.get(parent).add(Paths.get(key));
+  }
+
+  /**
+   * indexes the given folder key, and its parent folders that are missing.
+   *
+   * @param key the key to index.
+   */
+  private void addFolder(@NotNull final String key) {
+    if (this.children.containsKey(key)) {
+      return;
+    }
+    this.children.put(key, new ObjectArrayList<>());
+    this.addChild(key);
+  }
+}
@@ -25,13 +25,18 @@
 
 package net.shiruka.shiruka.pack.pack;
 
-import java.nio.file.Files;
-import java.security.MessageDigest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import net.shiruka.api.pack.Pack;
 import net.shiruka.api.pack.PackLoader;
 import net.shiruka.api.pack.PackManifest;
 import net.shiruka.api.pack.ResourcePackType;
+import net.shiruka.shiruka.pack.PackDigest;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * a class that represents resource packs.
@@ -56,9 +61,16 @@ public final class ResourcePack implements Pack {
   private final PackManifest manifest;
 
   /**
-   * the hash.
+   * the digest, which is precomputed while the packs are loading.
    */
-  private byte[] hash;
+  @Nullable
+  private volatile PackDigest digest;
+
+  /**
+   * the read-only memory-mapped view of the prepared file, which is created on the first chunk request.
+   */
+  @Nullable
+  private volatile ByteBuf mapped;
 
   /**
    * ctor.
@@ -73,15 +85,7 @@ public final class ResourcePack implements Pack {
 
   @Override
   public byte[] getHash() {
-    if (this.hash == null) {
-      try {
-        this.hash = MessageDigest.getInstance("SHA-256")
-          .digest(Files.readAllBytes(this.loader.getPreparedFile().join()));
-      } catch (final Exception e) {
-        throw new IllegalStateException("Unable to get hash of pack!", e);
-      }
-    }
-    return this.hash.clone();
+    return this.getDigest().getHash();
   }
 
   @NotNull
@@ -96,12 +100,91 @@ public final class ResourcePack implements Pack {
     return this.manifest;
   }
 
+  @Override
+  public long getSize() {
+    return this.getDigest().getSize();
+  }
+
   @NotNull
   @Override
   public ResourcePackType getType() {
     return ResourcePackType.RESOURCE;
   }
 
+  /**
+   * obtains a read-only slice of the prepared file without copying it.
+   * <p>
+   * the slice shares the memory-mapped file, so every connection that downloads the pack reads the same pages.
+   *
+   * @param offset the offset to obtain.
+   * @param length the maximum length to obtain, the slice is shorter at the end of the file.
+   *
+   * @return a read-only slice of the prepared file.
+   *
+   * @throws IllegalArgumentException if the offset is out of the file.
+   */
+  @NotNull
+  public ByteBuf getChunkBuffer(final long offset, final int length) {
+    final var file = this.map();
+    if (offset < 0L || offset >= file.capacity() || length < 0) {
+      throw new IllegalArgumentException(String.format("Chunk at %s is out of the pack!", offset));
+    }
+    return file.slice((int) offset, (int) Math.min(length, file.capacity() - offset));
+  }
+
+  /**
+   * obtains the digest, computes it if it's not precomputed.
+   *
+   * @return digest.
+   */
+  @NotNull
+  public PackDigest getDigest() {
+    var digest = this.digest;
+    if (digest == null) {
+      try {
+        digest = PackDigest.compute(this.loader.getPreparedFile().join());
+      } catch (final Exception e) {
+        throw new IllegalStateException("Unable to get hash of pack!", e);
+      }
+      this.digest = digest;
+    }
+    return digest;
+  }
+
+  /**
+   * sets the digest.
+   *
+   * @param digest the digest to set.
+   */
+  public void setDigest(@NotNull final PackDigest digest) {
+    this.digest = digest;
+  }
+
+  /**
+   * maps the prepared file into the memory.
+   *
+   * @return the read-only memory-mapped file.
+   */
+  @NotNull
+  private ByteBuf map() {
+    var mapped = this.mapped;
+    if (mapped == null) {
+      synchronized (this) {
+        mapped = this.mapped;
+        if (mapped == null) {
+          try (final var channel = FileChannel.open(this.loader.getPreparedFile().join(), StandardOpenOption.READ)) {
+            mapped = Unpooled.wrappedBuffer(channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size()))
+              .asReadOnly();
+          } catch (final IOException e) {
+            throw new IllegalStateException("Unable to map the pack!", e);
+          }
+          this.mapped = mapped;
+        }
+      }
+    }
+    return mapped;
+  }
+
   /**
    * a class that represents resource pack factories.
    */
@@ -30,6 +30,8 @@ import net.shiruka.api.Shiruka;
 import net.shiruka.api.plugin.Plugin;
 import net.shiruka.api.scheduler.Task;
 import net.shiruka.shiruka.ShirukaServer;
+import net.shiruka.shiruka.timings.TimingHistogram;
+import net.shiruka.shiruka.timings.Timings;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -96,6 +98,12 @@ public class ShirukaTask implements Task, Runnable {
    */
   private volatile long period;
 
+  /**
+   * the timing.
+   */
+  @Nullable
+  private TimingHistogram timing;
+
   /**
    * ctor.
    *
@@ -223,6 +231,22 @@ public class ShirukaTask implements Task, Runnable {
     this.period = period;
   }
 
+  /**
+   * obtains the timing of the task's owner.
+   *
+   * @return timing of the owner.
+   */
+  @NotNull
+  public final TimingHistogram getTiming() {
+    var timing = this.timing;
+    if (timing == null) {
+      final var name = this.owner == null ? "unknown" : this.owner.getDescription().getName();
+      timing = Timings.of("task." + name);
+      this.timing = timing;
+    }
+    return timing;
+  }
+
   /**
    * obtains the job.
    *
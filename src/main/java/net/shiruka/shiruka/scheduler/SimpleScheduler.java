@@ -46,6 +46,7 @@ import net.shiruka.api.plugin.Plugin;
 import net.shiruka.api.scheduler.Task;
 import net.shiruka.api.scheduler.TaskWorker;
 import net.shiruka.shiruka.ShirukaServer;
+import net.shiruka.shiruka.timings.Timings;
 import org.cactoos.map.MapEntry;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -280,6 +281,16 @@ public class SimpleScheduler implements ShirukaScheduler {
     return workers;
   }
 
+  /**
+   * obtains the sync task that the server thread is running.
+   *
+   * @return current task.
+   */
+  @Nullable
+  public final ShirukaTask getCurrentTask() {
+    return this.currentTask;
+  }
+
   @NotNull
   @Override
   public final List<Task> getPendingTasks() {
@@ -395,6 +406,7 @@ public class SimpleScheduler implements ShirukaScheduler {
       }
       if (task.isSync()) {
         this.currentTask = task;
+        final var start = Timings.start();
         try {
           task.run();
         } catch (final Throwable throwable) {
@@ -411,6 +423,7 @@ public class SimpleScheduler implements ShirukaScheduler {
           Shiruka.getEventManager().serverException(new ServerSchedulerException(msg, throwable, task))
             .callEvent();
         } finally {
+          task.getTiming().stop(start);
           this.currentTask = null;
         }
         this.parsePending();
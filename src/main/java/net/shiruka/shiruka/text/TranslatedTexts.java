@@ -99,6 +99,11 @@ public final class TranslatedTexts {
    */
   public static final TranslatedText RESTART_REASON = TranslatedText.get("shiruka.connection.restart_message");
 
+  /**
+   * the server busy reason.
+   */
+  public static final TranslatedText SERVER_BUSY_REASON = TranslatedText.get("shiruka.connection.server_busy");
+
   /**
    * the server full reason.
    */
@@ -114,6 +119,12 @@ public final class TranslatedTexts {
    */
   public static final TranslatedText SLOW_LOGIN_REASON = TranslatedText.get("shiruka.connection.slow_login");
 
+  /**
+   * the too many packets reason.
+   */
+  public static final TranslatedText TOO_MANY_PACKETS_REASON =
+    TranslatedText.get("shiruka.connection.too_many_packets");
+
   /**
    * the whitelist on reason.
    */
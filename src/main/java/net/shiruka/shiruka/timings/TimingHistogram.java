@@ -0,0 +1,244 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.timings;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonObject;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents a lock-free histogram of nanosecond durations.
+ * <p>
+ * every power of two is split into {@link #SUB_BUCKETS} linear buckets, so recording is a few atomic increments and
+ * percentiles are accurate within an eighth of the value.
+ */
+public final class TimingHistogram {
+
+  /**
+   * the bucket count.
+   */
+  private static final int BUCKETS = 61 * 8;
+
+  /**
+   * the nanos in a milli.
+   */
+  private static final double MILLI_IN_NANO = 1000000.0d;
+
+  /**
+   * the sub bucket bits.
+   */
+  private static final int SUB_BUCKET_BITS = 3;
+
+  /**
+   * the sub bucket count of each power of two.
+   */
+  private static final int SUB_BUCKETS = 1 << TimingHistogram.SUB_BUCKET_BITS;
+
+  /**
+   * the buckets.
+   */
+  private final AtomicLongArray buckets = new AtomicLongArray(TimingHistogram.BUCKETS);
+
+  /**
+   * the count.
+   */
+  private final LongAdder count = new LongAdder();
+
+  /**
+   * the max.
+   */
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * the name.
+   */
+  @NotNull
+  private final String name;
+
+  /**
+   * the total.
+   */
+  private final LongAdder total = new LongAdder();
+
+  /**
+   * ctor.
+   *
+   * @param name the name.
+   */
+  TimingHistogram(@NotNull final String name) {
+    this.name = name;
+  }
+
+  /**
+   * obtains the bucket index of the given {@code nanos}.
+   *
+   * @param nanos the nanos to index.
+   *
+   * @return bucket index.
+   */
+  private static int indexOf(final long nanos) {
+    if (nanos < TimingHistogram.SUB_BUCKETS) {
+      return (int) Math.max(nanos, 0L);
+    }
+    final var exponent = 63 - Long.numberOfLeadingZeros(nanos);
+    final var shift = exponent - TimingHistogram.SUB_BUCKET_BITS;
+    final var sub = (int) (nanos >>> shift) & TimingHistogram.SUB_BUCKETS - 1;
+    return (shift + 1) * TimingHistogram.SUB_BUCKETS + sub;
+  }
+
+  /**
+   * obtains the highest nanos of the given bucket {@code index}.
+   *
+   * @param index the index to convert.
+   *
+   * @return highest nanos of the bucket.
+   */
+  private static long highestOf(final int index) {
+    if (index < TimingHistogram.SUB_BUCKETS) {
+      return index;
+    }
+    final var shift = index / TimingHistogram.SUB_BUCKETS - 1;
+    final var sub = index % TimingHistogram.SUB_BUCKETS;
+    return ((long) (TimingHistogram.SUB_BUCKETS + sub) << shift) + (1L << shift) - 1L;
+  }
+
+  /**
+   * obtains the nearest-rank percentile of the given bucket {@code snapshot}.
+   *
+   * @param snapshot the bucket counts.
+   * @param count the total count of the buckets.
+   * @param max the maximum recorded nanos.
+   * @param percentile the percentile between 0 and 1.
+   *
+   * @return percentile in milliseconds.
+   */
+  private static double percentile(final long[] snapshot, final long count, final long max,
+                                   final double percentile) {
+    if (count == 0L) {
+      return 0.0d;
+    }
+    final var rank = Math.max((long) Math.ceil(percentile * count), 1L);
+    var seen = 0L;
+    for (var i = 0; i < snapshot.length; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(TimingHistogram.highestOf(i), max) / TimingHistogram.MILLI_IN_NANO;
+      }
+    }
+    return max / TimingHistogram.MILLI_IN_NANO;
+  }
+
+  /**
+   * obtains the name.
+   *
+   * @return name.
+   */
+  @NotNull
+  public String getName() {
+    return this.name;
+  }
+
+  /**
+   * obtains the total nanos.
+   *
+   * @return total nanos.
+   */
+  public long getTotal() {
+    return this.total.sum();
+  }
+
+  /**
+   * records the given {@code nanos}.
+   *
+   * @param nanos the nanos to record.
+   */
+  public void record(final long nanos) {
+    this.count.increment();
+    this.total.add(nanos);
+    this.buckets.incrementAndGet(TimingHistogram.indexOf(nanos));
+    var max = this.max.get();
+    while (nanos > max && !this.max.compareAndSet(max, nanos)) {
+      max = this.max.get();
+    }
+  }
+
+  /**
+   * clears the recorded durations.
+   */
+  public void reset() {
+    this.count.reset();
+    this.total.reset();
+    this.max.set(0L);
+    for (var i = 0; i < TimingHistogram.BUCKETS; i++) {
+      this.buckets.set(i, 0L);
+    }
+  }
+
+  /**
+   * records the nanos since the given {@code start} if the timings are enabled.
+   *
+   * @param start the start that {@link Timings#start()} returned.
+   *
+   * @return the current nanos to chain the next phase, or {@link Timings#DISABLED}.
+   */
+  public long stop(final long start) {
+    if (start == Timings.DISABLED) {
+      return Timings.DISABLED;
+    }
+    final var now = System.nanoTime();
+    this.record(now - start);
+    return now;
+  }
+
+  /**
+   * converts the recorded durations into a json object.
+   *
+   * @return json object of the histogram.
+   */
+  @NotNull
+  public JsonObject toJson() {
+    final var snapshot = new long[TimingHistogram.BUCKETS];
+    var count = 0L;
+    for (var i = 0; i < TimingHistogram.BUCKETS; i++) {
+      snapshot[i] = this.buckets.get(i);
+      count += snapshot[i];
+    }
+    final var total = this.total.sum();
+    final var max = this.max.get();
+    return Json.object()
+      .add("name", this.name)
+      .add("count", count)
+      .add("total_ms", total / TimingHistogram.MILLI_IN_NANO)
+      .add("average_ms", count == 0L ? 0.0d : total / (double) count / TimingHistogram.MILLI_IN_NANO)
+      .add("p50_ms", TimingHistogram.percentile(snapshot, count, max, 0.50d))
+      .add("p95_ms", TimingHistogram.percentile(snapshot, count, max, 0.95d))
+      .add("p99_ms", TimingHistogram.percentile(snapshot, count, max, 0.99d))
+      .add("max_ms", max / TimingHistogram.MILLI_IN_NANO);
+  }
+}
@@ -0,0 +1,214 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.timings;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.WriterConfig;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import net.shiruka.shiruka.ShirukaMain;
+import net.shiruka.shiruka.concurrent.ShirukaTick;
+import net.shiruka.shiruka.config.ServerConfig;
+import net.shiruka.shiruka.util.TickTimes;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that contains the timing histograms of the server.
+ * <p>
+ * the hot paths take {@link #start()} and give it to {@link TimingHistogram#stop(long)}, so a disabled timings costs
+ * a single volatile read.
+ */
+public final class Timings {
+
+  /**
+   * the start value when the timings are disabled.
+   */
+  public static final long DISABLED = Long.MIN_VALUE;
+
+  /**
+   * the event histograms.
+   */
+  private static final ClassValue<TimingHistogram> EVENTS = new ClassValue<>() {
+    @Override
+    protected TimingHistogram computeValue(@NotNull final Class<?> type) {
+      return Timings.of("event." + type.getSimpleName());
+    }
+  };
+
+  /**
+   * the histograms.
+   */
+  private static final Map<String, TimingHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+  /**
+   * the reports path.
+   */
+  private static final Path REPORTS_PATH = ShirukaMain.HOME_PATH.resolve("timings");
+
+  /**
+   * the enabled.
+   */
+  private static volatile boolean enabled;
+
+  /**
+   * the reset time.
+   */
+  private static volatile long resetTime = System.currentTimeMillis();
+
+  /**
+   * ctor.
+   */
+  private Timings() {
+  }
+
+  /**
+   * checks if the timings are enabled.
+   *
+   * @return {@code true} if the timings are enabled.
+   */
+  public static boolean isEnabled() {
+    return Timings.enabled;
+  }
+
+  /**
+   * sets the enabled.
+   *
+   * @param enabled the enabled to set.
+   */
+  public static void setEnabled(final boolean enabled) {
+    Timings.enabled = enabled;
+  }
+
+  /**
+   * obtains the histogram of the given {@code name}.
+   *
+   * @param name the name of the histogram.
+   *
+   * @return histogram of the name.
+   */
+  @NotNull
+  public static TimingHistogram of(@NotNull final String name) {
+    return Timings.HISTOGRAMS.computeIfAbsent(name, TimingHistogram::new);
+  }
+
+  /**
+   * obtains the histogram of the given event {@code type}.
+   *
+   * @param type the event type.
+   *
+   * @return histogram of the event.
+   */
+  @NotNull
+  public static TimingHistogram ofEvent(@NotNull final Class<?> type) {
+    return Timings.EVENTS.get(type);
+  }
+
+  /**
+   * clears every histogram.
+   */
+  public static void reset() {
+    Timings.HISTOGRAMS.values().forEach(TimingHistogram::reset);
+    Timings.resetTime = System.currentTimeMillis();
+  }
+
+  /**
+   * obtains the start of a timing.
+   *
+   * @return current nanos, or {@link #DISABLED} if the timings are disabled.
+   */
+  public static long start() {
+    return Timings.enabled ? System.nanoTime() : Timings.DISABLED;
+  }
+
+  /**
+   * snapshots the histograms and writes them as a json report into the timings directory.
+   * <p>
+   * the snapshots are taken in the background, since sorting the tick times takes too long for the tick thread.
+   *
+   * @return the path of the written report.
+   */
+  @NotNull
+  public static CompletableFuture<Path> writeReport() {
+    final var now = System.currentTimeMillis();
+    final var serverName = ServerConfig.TIMINGS_SERVER_NAME.getValue().orElse("Unknown Server");
+    final var sampleTime = now - Timings.resetTime;
+    return CompletableFuture.supplyAsync(() -> {
+      final var histograms = Json.array();
+      Timings.HISTOGRAMS.values().stream()
+        .sorted(Comparator.comparingLong(TimingHistogram::getTotal).reversed())
+        .forEach(histogram -> histograms.add(histogram.toJson()));
+      final var mspt = Json.array();
+      for (final var snapshot : ShirukaTick.getMspt()) {
+        mspt.add(Timings.toJson(snapshot));
+      }
+      final var report = Json.object()
+        .add("server", serverName)
+        .add("generated", now)
+        .add("sample_ms", sampleTime)
+        .add("tps", Json.array(ShirukaTick.getTps()))
+        .add("mspt", mspt)
+        .add("jitter", Timings.toJson(ShirukaTick.getJitter()))
+        .add("timings", histograms);
+      final var file = Timings.REPORTS_PATH.resolve(
+        "timings-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date(now)) + ".json");
+      try {
+        Files.createDirectories(Timings.REPORTS_PATH);
+        Files.writeString(file, report.toString(WriterConfig.PRETTY_PRINT), StandardCharsets.UTF_8);
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return file;
+    });
+  }
+
+  /**
+   * converts the given tick time {@code snapshot} into a json object.
+   *
+   * @param snapshot the snapshot to convert.
+   *
+   * @return json object of the snapshot.
+   */
+  @NotNull
+  private static JsonObject toJson(@NotNull final TickTimes.Snapshot snapshot) {
+    return Json.object()
+      .add("count", snapshot.getCount())
+      .add("average_ms", snapshot.getAverage())
+      .add("p50_ms", snapshot.getP50())
+      .add("p95_ms", snapshot.getP95())
+      .add("p99_ms", snapshot.getP99())
+      .add("max_ms", snapshot.getMax());
+  }
+}
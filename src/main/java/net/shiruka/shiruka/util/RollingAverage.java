@@ -25,26 +25,20 @@
 
 package net.shiruka.shiruka.util;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import net.shiruka.shiruka.concurrent.ShirukaTick;
-import org.jetbrains.annotations.NotNull;
 
 /**
  * a class that represents rolling average.
+ * <p>
+ * each sample is the nanos that {@link ShirukaTick#TPS} ticks took, so the average tps of the window is the tick
+ * count of the window divided by the sum of the samples, which is kept as a primitive running total.
  */
 public final class RollingAverage {
 
   /**
    * the seconds in a nano.
    */
-  private static final long SEC_IN_NANO = 1000000000;
-
-  /**
-   * the samples.
-   */
-  @NotNull
-  private final BigDecimal[] samples;
+  private static final long SEC_IN_NANO = 1000000000L;
 
   /**
    * the size.
@@ -64,59 +58,31 @@ public final class RollingAverage {
   /**
    * the time.
    */
-  private long time;
-
-  /**
-   * the total.
-   */
-  @NotNull
-  private BigDecimal total;
+  private volatile long time;
 
   /**
    * ctor.
    *
-   * @param size the ize.
+   * @param size the size.
    */
   public RollingAverage(final int size) {
     this.size = size;
     this.time = size * RollingAverage.SEC_IN_NANO;
-    this.total = RollingAverage.toDecimal(ShirukaTick.TPS)
-      .multiply(RollingAverage.toDecimal(RollingAverage.SEC_IN_NANO))
-      .multiply(RollingAverage.toDecimal(size));
-    this.samples = new BigDecimal[size];
     this.times = new long[size];
     for (var i = 0; i < size; i++) {
-      this.samples[i] = RollingAverage.toDecimal(ShirukaTick.TPS);
       this.times[i] = RollingAverage.SEC_IN_NANO;
     }
   }
 
   /**
-   * converts the given {@code time} to {@link BigDecimal} instance.
-   *
-   * @param time the time to convert.
+   * adds the given {@code time} as the newest sample.
    *
-   * @return converted big decimal instance.
+   * @param time the nanos that the sample took.
    */
-  @NotNull
-  private static BigDecimal toDecimal(final long time) {
-    return new BigDecimal(time);
-  }
-
-  /**
-   * adds the given {@code time} to the given {@code decimal}.
-   *
-   * @param decimal the decimal to add.
-   * @param time the time to add.
-   */
-  public void add(@NotNull final BigDecimal decimal, final long time) {
-    this.time -= this.times[this.index];
-    this.total = this.total.subtract(this.samples[this.index]
-      .multiply(RollingAverage.toDecimal(this.times[this.index])));
-    this.samples[this.index] = decimal;
+  public void add(final long time) {
+    final var total = this.time - this.times[this.index] + time;
     this.times[this.index] = time;
-    this.time += time;
-    this.total = this.total.add(decimal.multiply(RollingAverage.toDecimal(time)));
+    this.time = total;
     if (++this.index == this.size) {
       this.index = 0;
     }
@@ -128,6 +94,10 @@ public final class RollingAverage {
    * @return average.
    */
   public double getAverage() {
-    return this.total.divide(RollingAverage.toDecimal(this.time), 30, RoundingMode.HALF_UP).doubleValue();
+    final var total = this.time;
+    if (total <= 0L) {
+      return ShirukaTick.TPS;
+    }
+    return (double) ShirukaTick.TPS * RollingAverage.SEC_IN_NANO * this.size / total;
   }
 }
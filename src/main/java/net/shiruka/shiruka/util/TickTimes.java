@@ -0,0 +1,253 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.util;
+
+import java.util.Arrays;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that records the duration of every tick into a primitive ring buffer so percentiles of the milliseconds per
+ * tick can be computed over recent windows without allocating on the tick thread.
+ */
+public final class TickTimes {
+
+  /**
+   * the nanos in a milli.
+   */
+  private static final double MILLI_IN_NANO = 1000000.0d;
+
+  /**
+   * the smoothing factor of the exponential moving average.
+   */
+  private static final double SMOOTHING = 0.05d;
+
+  /**
+   * the samples.
+   */
+  private final long[] samples;
+
+  /**
+   * the exponential moving average of the tick durations.
+   */
+  private volatile double average = -1.0d;
+
+  /**
+   * the count of samples that have been written so far.
+   */
+  private volatile long written;
+
+  /**
+   * ctor.
+   *
+   * @param size the maximum count of ticks to keep.
+   */
+  public TickTimes(final int size) {
+    this.samples = new long[size];
+  }
+
+  /**
+   * obtains the nearest-rank percentile of the given sorted {@code samples}.
+   *
+   * @param samples the sorted samples.
+   * @param percentile the percentile between 0 and 1.
+   *
+   * @return percentile in milliseconds.
+   */
+  private static double percentile(final long[] samples, final double percentile) {
+    final var rank = (int) Math.ceil(percentile * samples.length);
+    return samples[Math.max(rank - 1, 0)] / TickTimes.MILLI_IN_NANO;
+  }
+
+  /**
+   * adds the given {@code nanos} as the newest tick duration.
+   * <p>
+   * only the tick thread should call this method.
+   *
+   * @param nanos the nanos that the tick took.
+   */
+  public void add(final long nanos) {
+    final var written = this.written;
+    this.samples[(int) (written % this.samples.length)] = nanos;
+    final var average = this.average;
+    this.average = average < 0.0d
+      ? nanos
+      : average + (nanos - average) * TickTimes.SMOOTHING;
+    this.written = written + 1L;
+  }
+
+  /**
+   * obtains the exponential moving average of the tick durations.
+   *
+   * @return average milliseconds per tick, roughly over the last second.
+   */
+  public double getRecentMspt() {
+    final var average = this.average;
+    return average < 0.0d ? 0.0d : average / TickTimes.MILLI_IN_NANO;
+  }
+
+  /**
+   * computes the statistics of the last {@code ticks} ticks.
+   * <p>
+   * samples that the tick thread overwrites while copying only make the result slightly newer. the window is copied
+   * and sorted, so this should not be called on the tick thread.
+   *
+   * @param ticks the tick count of the window.
+   *
+   * @return statistics of the window.
+   */
+  @NotNull
+  public Snapshot snapshot(final int ticks) {
+    final var written = this.written;
+    final var count = (int) Math.min(Math.min(ticks, this.samples.length), written);
+    if (count == 0) {
+      return new Snapshot(0, 0.0d, 0.0d, 0.0d, 0.0d, 0.0d);
+    }
+    final var copy = new long[count];
+    final var start = written - count;
+    var total = 0L;
+    for (var i = 0; i < count; i++) {
+      copy[i] = this.samples[(int) ((start + i) % this.samples.length)];
+      total += copy[i];
+    }
+    Arrays.sort(copy);
+    return new Snapshot(count,
+      total / (double) count / TickTimes.MILLI_IN_NANO,
+      TickTimes.percentile(copy, 0.50d),
+      TickTimes.percentile(copy, 0.95d),
+      TickTimes.percentile(copy, 0.99d),
+      copy[count - 1] / TickTimes.MILLI_IN_NANO);
+  }
+
+  /**
+   * a class that represents tick time statistics of a window.
+   */
+  public static final class Snapshot {
+
+    /**
+     * the average milliseconds per tick.
+     */
+    private final double average;
+
+    /**
+     * the tick count.
+     */
+    private final int count;
+
+    /**
+     * the maximum milliseconds per tick.
+     */
+    private final double max;
+
+    /**
+     * the median milliseconds per tick.
+     */
+    private final double p50;
+
+    /**
+     * the 95th percentile milliseconds per tick.
+     */
+    private final double p95;
+
+    /**
+     * the 99th percentile milliseconds per tick.
+     */
+    private final double p99;
+
+    /**
+     * ctor.
+     *
+     * @param count the tick count.
+     * @param average the average.
+     * @param p50 the p50.
+     * @param p95 the p95.
+     * @param p99 the p99.
+     * @param max the max.
+     */
+    private Snapshot(final int count, final double average, final double p50, final double p95, final double p99,
+                     final double max) {
+      this.count = count;
+      this.average = average;
+      this.p50 = p50;
+      this.p95 = p95;
+      this.p99 = p99;
+      this.max = max;
+    }
+
+    /**
+     * obtains the average.
+     *
+     * @return average milliseconds per tick.
+     */
+    public double getAverage() {
+      return this.average;
+    }
+
+    /**
+     * obtains the count.
+     *
+     * @return tick count of the window.
+     */
+    public int getCount() {
+      return this.count;
+    }
+
+    /**
+     * obtains the max.
+     *
+     * @return maximum milliseconds per tick.
+     */
+    public double getMax() {
+      return this.max;
+    }
+
+    /**
+     * obtains the p50.
+     *
+     * @return median milliseconds per tick.
+     */
+    public double getP50() {
+      return this.p50;
+    }
+
+    /**
+     * obtains the p95.
+     *
+     * @return 95th percentile milliseconds per tick.
+     */
+    public double getP95() {
+      return this.p95;
+    }
+
+    /**
+     * obtains the p99.
+     *
+     * @return 99th percentile milliseconds per tick.
+     */
+    public double getP99() {
+      return this.p99;
+    }
+  }
+}
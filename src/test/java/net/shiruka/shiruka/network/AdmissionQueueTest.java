@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import net.shiruka.shiruka.concurrent.ShirukaTick;
+import org.junit.jupiter.api.Test;
+
+final class AdmissionQueueTest {
+
+  private static AdmissionQueue<String> queue(final double rate, final double subnetRate) {
+    return new AdmissionQueue<>(rate, subnetRate, entry -> entry.substring(0, 1), entry -> false);
+  }
+
+  @Test
+  void admitsInArrivalOrder() {
+    final var queue = AdmissionQueueTest.queue(2.0d, 0.0d);
+    queue.enqueue("a1");
+    queue.enqueue("b1");
+    queue.enqueue("c1");
+    queue.enqueue("d1");
+    assertEquals(3, queue.getPosition("c1"));
+    queue.tick(System.nanoTime());
+    assertTrue(queue.poll("a1"));
+    assertTrue(queue.poll("b1"));
+    assertFalse(queue.poll("c1"));
+    assertEquals(1, queue.getPosition("c1"));
+    assertEquals(2, queue.getPosition("d1"));
+    assertEquals(2, queue.getPendingCount());
+  }
+
+  @Test
+  void disconnectedEntriesAreDropped() {
+    final var disconnected = new HashSet<String>();
+    final var queue = new AdmissionQueue<String>(1.0d, 0.0d, entry -> entry, disconnected::contains);
+    queue.enqueue("a");
+    queue.enqueue("b");
+    disconnected.add("a");
+    queue.tick(System.nanoTime());
+    assertFalse(queue.poll("a"));
+    assertTrue(queue.poll("b"));
+    assertEquals(0, queue.getPendingCount());
+  }
+
+  @Test
+  void fullBucketIsCappedAtRate() {
+    final var queue = AdmissionQueueTest.queue(5.0d, 0.0d);
+    queue.tick(System.nanoTime() + TimeUnit.SECONDS.toNanos(10L));
+    assertEquals(5.0d, queue.getTokens(), 1.0e-9d);
+  }
+
+  @Test
+  void lowRateAdmitsWhileOverloaded() {
+    final var queue = AdmissionQueueTest.queue(1.0d, 0.0d);
+    queue.updateHeadroom(-ShirukaTick.TICK_TIME);
+    var now = System.nanoTime();
+    for (var tick = 0; tick < 100; tick++) {
+      now += ShirukaTick.TICK_TIME;
+      queue.tick(now);
+      assertTrue(queue.getTokens() >= 1.0d, "a login must be admittable while overloaded");
+    }
+  }
+
+  @Test
+  void rateIsAtLeastOne() {
+    final var queue = AdmissionQueueTest.queue(0.0d, 0.0d);
+    queue.updateHeadroom(-ShirukaTick.TICK_TIME);
+    queue.tick(System.nanoTime() + ShirukaTick.TICK_TIME);
+    assertEquals(1.0d, queue.getTokens(), 1.0e-9d);
+  }
+
+  @Test
+  void throttledSubnetDoesNotBlockOthers() {
+    final var queue = AdmissionQueueTest.queue(10.0d, 0.2d);
+    queue.enqueue("a1");
+    queue.enqueue("a2");
+    queue.enqueue("a3");
+    queue.enqueue("b1");
+    var now = System.nanoTime();
+    queue.tick(now);
+    assertTrue(queue.poll("a1"));
+    assertFalse(queue.poll("a2"));
+    assertTrue(queue.poll("b1"));
+    assertEquals(1, queue.getPosition("a2"));
+    assertEquals(2, queue.getPosition("a3"));
+    now += TimeUnit.SECONDS.toNanos(5L);
+    queue.tick(now);
+    assertTrue(queue.poll("a2"));
+    assertFalse(queue.poll("a3"));
+    assertEquals(1, queue.getPosition("a3"));
+  }
+}
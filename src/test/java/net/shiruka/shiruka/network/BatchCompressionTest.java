@@ -0,0 +1,89 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import net.shiruka.shiruka.network.packets.DisconnectPacket;
+import net.shiruka.shiruka.network.packets.PlayStatusPacket;
+import net.shiruka.shiruka.network.packets.ResourcePackChunkDataPacket;
+import org.junit.jupiter.api.Test;
+
+final class BatchCompressionTest {
+
+  private static final int THRESHOLD = 256;
+
+  private static ShirukaPacket chunk() {
+    return new ResourcePackChunkDataPacket(0, new byte[0], UUID.randomUUID(), "1.0.0", 0L);
+  }
+
+  private static ShirukaPacket status() {
+    return new PlayStatusPacket(PlayStatusPacket.Status.LOGIN_SUCCESS);
+  }
+
+  @Test
+  void bulkPacketsRaiseTheLevel() {
+    assertEquals(BatchCompression.BULK_LEVEL, BatchCompression.getLevel(
+      List.of(BatchCompressionTest.status(), BatchCompressionTest.chunk()), BatchCompressionTest.THRESHOLD,
+      BatchCompressionTest.THRESHOLD));
+  }
+
+  @Test
+  void highestRegisteredLevelWins() {
+    BatchCompression.register(DisconnectPacket.class, Deflater.BEST_COMPRESSION);
+    try {
+      assertEquals(Deflater.BEST_COMPRESSION, BatchCompression.getLevel(
+        List.of(BatchCompressionTest.chunk(), new DisconnectPacket("", true)), BatchCompressionTest.THRESHOLD,
+        BatchCompressionTest.THRESHOLD));
+    } finally {
+      BatchCompression.register(DisconnectPacket.class, BatchCompression.FAST_LEVEL);
+    }
+  }
+
+  @Test
+  void negativeThresholdDisablesCompression() {
+    assertEquals(Deflater.NO_COMPRESSION, BatchCompression.getLevel(
+      List.of(BatchCompressionTest.chunk()), Protocol.MAX_BATCH_SIZE, -1));
+  }
+
+  @Test
+  void smallBatchesAreStored() {
+    final var packets = List.of(BatchCompressionTest.chunk());
+    assertEquals(Deflater.NO_COMPRESSION, BatchCompression.getLevel(packets, BatchCompressionTest.THRESHOLD - 1,
+      BatchCompressionTest.THRESHOLD));
+    assertEquals(BatchCompression.BULK_LEVEL, BatchCompression.getLevel(packets, BatchCompressionTest.THRESHOLD,
+      BatchCompressionTest.THRESHOLD));
+  }
+
+  @Test
+  void unregisteredPacketsAreFast() {
+    assertEquals(BatchCompression.FAST_LEVEL, BatchCompression.getLevel(PlayStatusPacket.class));
+    assertEquals(BatchCompression.FAST_LEVEL, BatchCompression.getLevel(
+      List.of(BatchCompressionTest.status()), BatchCompressionTest.THRESHOLD, BatchCompressionTest.THRESHOLD));
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import org.junit.jupiter.api.Test;
+
+final class LoginAdmissionTest {
+
+  @Test
+  void ipv4SubnetsAreSlash24() throws UnknownHostException {
+    assertEquals(LoginAdmission.subnet(InetAddress.getByName("192.168.1.10")),
+      LoginAdmission.subnet(InetAddress.getByName("192.168.1.200")));
+    assertEquals("c0a801", LoginAdmission.subnet(InetAddress.getByName("192.168.1.10")));
+  }
+
+  @Test
+  void ipv6SubnetsAreSlash64() throws UnknownHostException {
+    assertEquals(LoginAdmission.subnet(InetAddress.getByName("2001:db8:1:2::1")),
+      LoginAdmission.subnet(InetAddress.getByName("2001:db8:1:2:ffff::2")));
+    assertEquals("20010db800010002", LoginAdmission.subnet(InetAddress.getByName("2001:db8:1:2::1")));
+  }
+}
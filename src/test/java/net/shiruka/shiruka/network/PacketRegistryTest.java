@@ -0,0 +1,103 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.network;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import io.netty.buffer.ByteBuf;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+final class PacketRegistryTest {
+
+  private static final int CLIENT_CACHE_STATUS = 129;
+
+  private static final int LOGIN = 1;
+
+  private static final int UNUSED = PacketRegistry.PACKET_ID_COUNT - 1;
+
+  @Test
+  void directionsAreSeparate() {
+    assertNull(PacketRegistry.get(PacketRegistry.Direction.CLIENTBOUND, PacketRegistry.State.LOGIN,
+      PacketRegistryTest.LOGIN));
+  }
+
+  @Test
+  void invalidIdsAreRejected() {
+    final Function<ByteBuf, ShirukaPacket> decoder = buffer -> null;
+    assertNull(PacketRegistry.get(PacketRegistry.Direction.SERVERBOUND, PacketRegistry.State.PLAY, -1));
+    assertNull(PacketRegistry.get(PacketRegistry.Direction.SERVERBOUND, PacketRegistry.State.PLAY,
+      PacketRegistry.PACKET_ID_COUNT));
+    assertThrows(IllegalArgumentException.class, () ->
+      PacketRegistry.register(PacketRegistry.Direction.SERVERBOUND, PacketRegistry.PACKET_ID_COUNT, decoder,
+        PacketRegistry.State.PLAY));
+    assertThrows(IllegalArgumentException.class, () ->
+      PacketRegistry.register(PacketRegistry.Direction.SERVERBOUND, PacketRegistryTest.UNUSED, decoder));
+    assertThrows(IllegalArgumentException.class, () ->
+      PacketRegistry.unregister(PacketRegistry.Direction.SERVERBOUND, -1, PacketRegistry.State.PLAY));
+  }
+
+  @Test
+  void loginPacketIsOnlyInLogin() {
+    assertNotNull(PacketRegistry.get(PacketRegistry.Direction.SERVERBOUND, PacketRegistry.State.LOGIN,
+      PacketRegistryTest.LOGIN));
+    assertNull(PacketRegistry.get(PacketRegistry.Direction.SERVERBOUND, PacketRegistry.State.PLAY,
+      PacketRegistryTest.LOGIN));
+  }
+
+  @Test
+  void registerAndUnregister() {
+    final Function<ByteBuf, ShirukaPacket> decoder = buffer -> null;
+    PacketRegistry.register(PacketRegistry.Direction.SERVERBOUND, PacketRegistryTest.UNUSED, decoder,
+      PacketRegistry.State.LOGIN, PacketRegistry.State.PLAY);
+    try {
+      assertSame(decoder, PacketRegistry.get(PacketRegistry.Direction.SERVERBOUND, PacketRegistry.State.LOGIN,
+        PacketRegistryTest.UNUSED));
+      assertSame(decoder, PacketRegistry.get(PacketRegistry.Direction.SERVERBOUND, PacketRegistry.State.PLAY,
+        PacketRegistryTest.UNUSED));
+      PacketRegistry.unregister(PacketRegistry.Direction.SERVERBOUND, PacketRegistryTest.UNUSED,
+        PacketRegistry.State.PLAY);
+      assertSame(decoder, PacketRegistry.get(PacketRegistry.Direction.SERVERBOUND, PacketRegistry.State.LOGIN,
+        PacketRegistryTest.UNUSED));
+      assertNull(PacketRegistry.get(PacketRegistry.Direction.SERVERBOUND, PacketRegistry.State.PLAY,
+        PacketRegistryTest.UNUSED));
+    } finally {
+      PacketRegistry.unregister(PacketRegistry.Direction.SERVERBOUND, PacketRegistryTest.UNUSED,
+        PacketRegistry.State.LOGIN, PacketRegistry.State.PLAY);
+    }
+  }
+
+  @Test
+  void sharedPacketsAreInBothStates() {
+    final var login = PacketRegistry.get(PacketRegistry.Direction.SERVERBOUND, PacketRegistry.State.LOGIN,
+      PacketRegistryTest.CLIENT_CACHE_STATUS);
+    assertNotNull(login);
+    assertSame(login, PacketRegistry.get(PacketRegistry.Direction.SERVERBOUND, PacketRegistry.State.PLAY,
+      PacketRegistryTest.CLIENT_CACHE_STATUS));
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.network;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import org.junit.jupiter.api.Test;
+
+final class ZlibTest {
+
+  private static final int LEVEL = 7;
+
+  private static final int SIZE = 256 * 1024;
+
+  private static final Zlib ZLIB = new Zlib(new JavaZlibBackend(), true);
+
+  private static ByteBuf deflate(final byte[] data) {
+    final var uncompressed = Unpooled.directBuffer(data.length).writeBytes(data);
+    final var compressed = Unpooled.directBuffer();
+    try {
+      ZlibTest.ZLIB.deflate(uncompressed, compressed, ZlibTest.LEVEL);
+    } finally {
+      uncompressed.release();
+    }
+    return compressed;
+  }
+
+  private static byte[] inflate(final ByteBuf compressed, final int maxSize) throws DataFormatException {
+    final var inflated = Unpooled.buffer();
+    final var window = Unpooled.directBuffer(1024);
+    try {
+      final var size = ZlibTest.ZLIB.inflate(compressed, maxSize, window, buffer -> {
+        inflated.writeBytes(buffer);
+        buffer.discardReadBytes();
+      });
+      assertEquals(inflated.readableBytes(), size);
+      return ByteBufUtil.getBytes(inflated);
+    } finally {
+      window.release();
+    }
+  }
+
+  private static byte[] sample() {
+    final var data = new byte[ZlibTest.SIZE];
+    final var random = new Random(42L);
+    for (var index = 0; index < data.length; index++) {
+      data[index] = (byte) (random.nextInt(16) + 'a');
+    }
+    return data;
+  }
+
+  @Test
+  void deflateBoundCoversIncompressibleData() {
+    final var data = new byte[ZlibTest.SIZE];
+    new Random(42L).nextBytes(data);
+    final var compressed = ZlibTest.deflate(data);
+    try {
+      assertTrue(compressed.readableBytes() <= Zlib.deflateBound(data.length));
+    } finally {
+      compressed.release();
+    }
+  }
+
+  @Test
+  void oversizedDataIsRejected() {
+    final var compressed = ZlibTest.deflate(ZlibTest.sample());
+    try {
+      final var exception = assertThrows(DataFormatException.class, () ->
+        ZlibTest.inflate(compressed, ZlibTest.SIZE - 1));
+      assertEquals("Inflated data exceeds maximum size!", exception.getMessage());
+    } finally {
+      compressed.release();
+    }
+  }
+
+  @Test
+  void roundTrip() throws DataFormatException {
+    final var data = ZlibTest.sample();
+    final var compressed = ZlibTest.deflate(data);
+    try {
+      assertTrue(compressed.readableBytes() < data.length);
+      assertArrayEquals(data, ZlibTest.inflate(compressed, data.length));
+    } finally {
+      compressed.release();
+    }
+  }
+
+  @Test
+  void truncatedDataIsRejected() {
+    final var compressed = ZlibTest.deflate(ZlibTest.sample());
+    try {
+      final var truncated = compressed.slice(0, compressed.readableBytes() / 2);
+      final var exception = assertThrows(DataFormatException.class, () ->
+        ZlibTest.inflate(truncated, ZlibTest.SIZE));
+      assertEquals("Compressed data is truncated!", exception.getMessage());
+    } finally {
+      compressed.release();
+    }
+  }
+}
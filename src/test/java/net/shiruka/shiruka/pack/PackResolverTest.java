@@ -0,0 +1,160 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.pack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import net.shiruka.api.pack.Pack;
+import net.shiruka.api.pack.PackManifest;
+import net.shiruka.shiruka.pack.loader.RplDirectory;
+import net.shiruka.shiruka.pack.pack.ResourcePack;
+import org.junit.jupiter.api.Test;
+
+final class PackResolverTest {
+
+  private static PackResolver.Candidate candidate(final String name, final String version,
+                                                  final String... dependencies) throws IOException {
+    final var dependencyJson = new StringBuilder();
+    for (final var dependency : dependencies) {
+      final var parts = dependency.split("@");
+      if (dependencyJson.length() > 0) {
+        dependencyJson.append(',');
+      }
+      dependencyJson.append(String.format("{\"uuid\":\"%s\",\"version\":%s}", PackResolverTest.uuid(parts[0]),
+        PackResolverTest.version(parts[1])));
+    }
+    final var json = String.format("{\"format_version\":2," +
+        "\"header\":{\"name\":\"%s\",\"description\":\"\",\"uuid\":\"%s\",\"version\":%s}," +
+        "\"modules\":[{\"type\":\"resources\",\"uuid\":\"%s\",\"version\":%s}]," +
+        "\"dependencies\":[%s]}",
+      name, PackResolverTest.uuid(name), PackResolverTest.version(version),
+      UUID.nameUUIDFromBytes(("module-" + name).getBytes(StandardCharsets.UTF_8)), PackResolverTest.version(version),
+      dependencyJson);
+    final var manifest = PackManifest.load(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    return new PackResolver.Candidate(new RplDirectory(Paths.get(name)), manifest, 0L);
+  }
+
+  private static List<String> names(final List<PackResolver.Candidate> candidates) {
+    return candidates.stream()
+      .map(candidate -> candidate.getManifest().getHeader().getName())
+      .collect(Collectors.toList());
+  }
+
+  private static UUID uuid(final String name) {
+    return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String version(final String version) {
+    return "[" + version.replace('.', ',') + "]";
+  }
+
+  @Test
+  void comparesVersionsNumerically() {
+    assertTrue(PackResolver.compareVersions("1.10.0", "1.9.9") > 0);
+    assertTrue(PackResolver.compareVersions("0.9", "1.0.0") < 0);
+    assertEquals(0, PackResolver.compareVersions("1.0", "1.0.0"));
+  }
+
+  @Test
+  void cyclesAreRejected() throws IOException {
+    final var resolver = new PackResolver(Collections.emptyMap());
+    final var first = PackResolverTest.candidate("first", "1.0.0", "second@1.0.0");
+    final var second = PackResolverTest.candidate("second", "1.0.0", "first@1.0.0");
+    resolver.add(first);
+    resolver.add(second);
+    resolver.add(PackResolverTest.candidate("free", "1.0.0"));
+    assertEquals(List.of("free"), PackResolverTest.names(resolver.resolve()));
+    final var rejected = resolver.getRejected();
+    assertEquals(2, rejected.size());
+    assertTrue(rejected.containsKey(first));
+    assertTrue(rejected.containsKey(second));
+    assertTrue(rejected.values().contains("cyclic dependency"));
+  }
+
+  @Test
+  void dependenciesComeFirst() throws IOException {
+    final var resolver = new PackResolver(Collections.emptyMap());
+    resolver.add(PackResolverTest.candidate("top", "1.0.0", "middle@1.0.0"));
+    resolver.add(PackResolverTest.candidate("middle", "1.0.0", "base@1.0.0"));
+    resolver.add(PackResolverTest.candidate("base", "1.0.0"));
+    assertEquals(List.of("base", "middle", "top"), PackResolverTest.names(resolver.resolve()));
+    assertTrue(resolver.getRejected().isEmpty());
+  }
+
+  @Test
+  void loadedPacksSatisfyDependencies() throws IOException {
+    final var base = PackResolverTest.candidate("base", "2.0.0");
+    final Map<UUID, Pack> loaded = Map.of(PackResolverTest.uuid("base"),
+      new ResourcePack(base.getLoader(), base.getManifest()));
+    final var resolver = new PackResolver(loaded);
+    resolver.add(PackResolverTest.candidate("addon", "1.0.0", "base@1.5.0"));
+    assertEquals(List.of("addon"), PackResolverTest.names(resolver.resolve()));
+  }
+
+  @Test
+  void missingDependenciesRejectDependents() throws IOException {
+    final var resolver = new PackResolver(Collections.emptyMap());
+    final var middle = PackResolverTest.candidate("middle", "1.0.0", "missing@1.0.0");
+    final var top = PackResolverTest.candidate("top", "1.0.0", "middle@1.0.0");
+    resolver.add(top);
+    resolver.add(middle);
+    assertTrue(resolver.resolve().isEmpty());
+    assertTrue(resolver.getRejected().get(middle).endsWith("is missing"));
+    assertTrue(resolver.getRejected().containsKey(top));
+  }
+
+  @Test
+  void newerVersionWins() throws IOException {
+    final var resolver = new PackResolver(Collections.emptyMap());
+    final var older = PackResolverTest.candidate("pack", "1.0.0");
+    final var newer = PackResolverTest.candidate("pack", "1.1.0");
+    assertNull(resolver.add(older));
+    assertSame(older, resolver.add(newer));
+    assertSame(older, resolver.add(older));
+    assertEquals(List.of(newer), resolver.resolve());
+  }
+
+  @Test
+  void oldDependenciesAreRejected() throws IOException {
+    final var resolver = new PackResolver(Collections.emptyMap());
+    final var addon = PackResolverTest.candidate("addon", "1.0.0", "base@2.0.0");
+    resolver.add(addon);
+    resolver.add(PackResolverTest.candidate("base", "1.0.0"));
+    assertEquals(List.of("base"), PackResolverTest.names(resolver.resolve()));
+    assertTrue(resolver.getRejected().get(addon).endsWith("is found"));
+  }
+}
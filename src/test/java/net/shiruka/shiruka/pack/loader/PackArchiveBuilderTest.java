@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.pack.loader;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.ZipFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+final class PackArchiveBuilderTest {
+
+  private static final int LEVEL = Deflater.DEFAULT_COMPRESSION;
+
+  private static Path pack(final Path directory) throws IOException {
+    final var random = new byte[4096];
+    new Random(42L).nextBytes(random);
+    Files.createDirectories(directory.resolve("textures"));
+    Files.createDirectories(directory.resolve("texts"));
+    Files.writeString(directory.resolve("manifest.json"), "{\"format_version\":2}");
+    Files.write(directory.resolve("textures/noise.png"), random);
+    Files.writeString(directory.resolve("texts/en_US.lang"), "item.name=Name\n".repeat(256));
+    return directory;
+  }
+
+  @Test
+  void archiveIsReadable(@TempDir final Path root) throws IOException {
+    final var directory = PackArchiveBuilderTest.pack(root.resolve("pack"));
+    final var archive = PackArchiveBuilder.build(directory, root.resolve("cache"), PackArchiveBuilderTest.LEVEL);
+    try (final var zip = new ZipFile(archive.toFile())) {
+      assertEquals(3, zip.size());
+      for (final var name : new String[]{"manifest.json", "textures/noise.png", "texts/en_US.lang"}) {
+        final var entry = zip.getEntry(name);
+        try (final var input = zip.getInputStream(entry)) {
+          assertArrayEquals(Files.readAllBytes(directory.resolve(name)), input.readAllBytes());
+        }
+      }
+    }
+  }
+
+  @Test
+  void changesReplaceTheCachedArchive(@TempDir final Path root) throws IOException {
+    final var directory = PackArchiveBuilderTest.pack(root.resolve("pack"));
+    final var cache = root.resolve("cache");
+    final var first = PackArchiveBuilder.build(directory, cache, PackArchiveBuilderTest.LEVEL);
+    assertEquals(first, PackArchiveBuilder.build(directory, cache, PackArchiveBuilderTest.LEVEL));
+    Files.writeString(directory.resolve("manifest.json"), "{\"format_version\":2,\"changed\":true}",
+      StandardCharsets.UTF_8);
+    final var second = PackArchiveBuilder.build(directory, cache, PackArchiveBuilderTest.LEVEL);
+    assertNotEquals(first, second);
+    assertFalse(Files.exists(first));
+  }
+
+  @Test
+  void directoriesWithTheSameNameDoNotShareArchives(@TempDir final Path root) throws IOException {
+    final var cache = root.resolve("cache");
+    final var first = PackArchiveBuilder.build(PackArchiveBuilderTest.pack(root.resolve("a/pack")), cache,
+      PackArchiveBuilderTest.LEVEL);
+    final var second = PackArchiveBuilder.build(PackArchiveBuilderTest.pack(root.resolve("b/pack")), cache,
+      PackArchiveBuilderTest.LEVEL);
+    assertNotEquals(first.getFileName(), second.getFileName());
+    assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+  }
+
+  @Test
+  void sameSizeEditsWithPreservedTimesAreDetected(@TempDir final Path root) throws IOException {
+    final var directory = PackArchiveBuilderTest.pack(root.resolve("pack"));
+    final var cache = root.resolve("cache");
+    final var manifest = directory.resolve("manifest.json");
+    final var time = Files.getLastModifiedTime(manifest);
+    final var first = PackArchiveBuilder.build(directory, cache, PackArchiveBuilderTest.LEVEL);
+    Files.writeString(manifest, "{\"format_version\":3}");
+    Files.setLastModifiedTime(manifest, time);
+    final var second = PackArchiveBuilder.build(directory, cache, PackArchiveBuilderTest.LEVEL);
+    assertNotEquals(first, second);
+    try (final var zip = new ZipFile(second.toFile());
+         final var input = zip.getInputStream(zip.getEntry("manifest.json"))) {
+      assertArrayEquals(Files.readAllBytes(manifest), input.readAllBytes());
+    }
+  }
+
+  @Test
+  void sameDirectoryBuildsTheSameBytes(@TempDir final Path root) throws IOException {
+    final var directory = PackArchiveBuilderTest.pack(root.resolve("pack"));
+    final var first = PackArchiveBuilder.build(directory, root.resolve("first"), PackArchiveBuilderTest.LEVEL);
+    final var second = PackArchiveBuilder.build(directory, root.resolve("second"), PackArchiveBuilderTest.LEVEL);
+    assertEquals(first.getFileName(), second.getFileName());
+    assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.timings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+final class TimingHistogramTest {
+
+  private static final double MILLI_IN_NANO = 1000000.0d;
+
+  @Test
+  void bucketsAreWithinAnEighth() {
+    for (var nanos = 1L; nanos < TimeUnit.HOURS.toNanos(1L); nanos = nanos * 3L + 1L) {
+      final var histogram = new TimingHistogram("test");
+      histogram.record(nanos);
+      histogram.record(Long.MAX_VALUE / 2L);
+      final var p50 = histogram.toJson().getDouble("p50_ms", -1.0d) * TimingHistogramTest.MILLI_IN_NANO;
+      assertTrue(p50 >= nanos - 1.0e-3d, nanos + " is above its bucket " + p50);
+      assertTrue(p50 <= nanos * 1.125d + 1.0d, nanos + " is too far from its bucket " + p50);
+    }
+  }
+
+  @Test
+  void disabledStopDoesNotRecord() {
+    final var histogram = new TimingHistogram("test");
+    assertEquals(Timings.DISABLED, histogram.stop(Timings.DISABLED));
+    assertEquals(0L, histogram.toJson().getLong("count", -1L));
+  }
+
+  @Test
+  void emptyHistogram() {
+    final var json = new TimingHistogram("test").toJson();
+    assertEquals("test", json.getString("name", null));
+    assertEquals(0L, json.getLong("count", -1L));
+    assertEquals(0.0d, json.getDouble("average_ms", -1.0d));
+    assertEquals(0.0d, json.getDouble("p99_ms", -1.0d));
+  }
+
+  @Test
+  void percentilesOfMilliseconds() {
+    final var histogram = new TimingHistogram("test");
+    for (var ms = 1L; ms <= 100L; ms++) {
+      histogram.record(TimeUnit.MILLISECONDS.toNanos(ms));
+    }
+    final var json = histogram.toJson();
+    assertEquals(100L, json.getLong("count", -1L));
+    assertEquals(5050.0d, json.getDouble("total_ms", -1.0d), 1.0e-9d);
+    assertEquals(50.5d, json.getDouble("average_ms", -1.0d), 1.0e-9d);
+    assertEquals(100.0d, json.getDouble("max_ms", -1.0d), 1.0e-9d);
+    final var p50 = json.getDouble("p50_ms", -1.0d);
+    assertTrue(p50 >= 50.0d && p50 <= 50.0d * 1.125d, "p50 " + p50);
+    final var p99 = json.getDouble("p99_ms", -1.0d);
+    assertTrue(p99 >= 99.0d && p99 <= 100.0d, "p99 " + p99);
+  }
+
+  @Test
+  void resetClearsEverything() {
+    final var histogram = new TimingHistogram("test");
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(5L));
+    histogram.reset();
+    final var json = histogram.toJson();
+    assertEquals(0L, histogram.getTotal());
+    assertEquals(0L, json.getLong("count", -1L));
+    assertEquals(0.0d, json.getDouble("max_ms", -1.0d));
+  }
+
+  @Test
+  void smallValuesAreExact() {
+    final var histogram = new TimingHistogram("test");
+    histogram.record(3L);
+    histogram.record(5L);
+    assertEquals(8L, histogram.getTotal());
+    assertEquals(5.0d / TimingHistogramTest.MILLI_IN_NANO, histogram.toJson().getDouble("p99_ms", -1.0d), 1.0e-12d);
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.concurrent.TimeUnit;
+import net.shiruka.shiruka.concurrent.ShirukaTick;
+import org.junit.jupiter.api.Test;
+
+final class RollingAverageTest {
+
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1L);
+
+  @Test
+  void averagesTheWindow() {
+    final var average = new RollingAverage(4);
+    average.add(RollingAverageTest.SECOND * 2L);
+    average.add(RollingAverageTest.SECOND * 2L);
+    assertEquals(ShirukaTick.TPS * 4.0d / 6.0d, average.getAverage(), 1.0e-9d);
+  }
+
+  @Test
+  void dropsTheOldestSample() {
+    final var average = new RollingAverage(2);
+    average.add(RollingAverageTest.SECOND * 4L);
+    average.add(RollingAverageTest.SECOND * 4L);
+    assertEquals(ShirukaTick.TPS / 4.0d, average.getAverage(), 1.0e-9d);
+    average.add(RollingAverageTest.SECOND);
+    average.add(RollingAverageTest.SECOND);
+    assertEquals(ShirukaTick.TPS, average.getAverage(), 1.0e-9d);
+  }
+
+  @Test
+  void startsAtFullTps() {
+    assertEquals(ShirukaTick.TPS, new RollingAverage(60).getAverage(), 1.0e-9d);
+  }
+}
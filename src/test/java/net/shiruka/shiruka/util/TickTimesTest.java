@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package net.shiruka.shiruka.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+final class TickTimesTest {
+
+  private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1L);
+
+  @Test
+  void emptySnapshot() {
+    final var snapshot = new TickTimes(10).snapshot(10);
+    assertEquals(0, snapshot.getCount());
+    assertEquals(0.0d, snapshot.getMax());
+    assertEquals(0.0d, new TickTimes(10).getRecentMspt());
+  }
+
+  @Test
+  void keepsOnlyTheLastSamples() {
+    final var times = new TickTimes(4);
+    for (var ms = 1L; ms <= 10L; ms++) {
+      times.add(ms * TickTimesTest.MILLISECOND);
+    }
+    final var snapshot = times.snapshot(100);
+    assertEquals(4, snapshot.getCount());
+    assertEquals(8.5d, snapshot.getAverage(), 1.0e-9d);
+    assertEquals(10.0d, snapshot.getMax(), 1.0e-9d);
+    assertEquals(8.0d, snapshot.getP50(), 1.0e-9d);
+  }
+
+  @Test
+  void nearestRankPercentiles() {
+    final var times = new TickTimes(200);
+    for (var ms = 100L; ms >= 1L; ms--) {
+      times.add(ms * TickTimesTest.MILLISECOND);
+    }
+    final var snapshot = times.snapshot(100);
+    assertEquals(100, snapshot.getCount());
+    assertEquals(50.5d, snapshot.getAverage(), 1.0e-9d);
+    assertEquals(50.0d, snapshot.getP50(), 1.0e-9d);
+    assertEquals(95.0d, snapshot.getP95(), 1.0e-9d);
+    assertEquals(99.0d, snapshot.getP99(), 1.0e-9d);
+    assertEquals(100.0d, snapshot.getMax(), 1.0e-9d);
+  }
+
+  @Test
+  void recentMsptFollowsTheSamples() {
+    final var times = new TickTimes(10);
+    times.add(50L * TickTimesTest.MILLISECOND);
+    assertEquals(50.0d, times.getRecentMspt(), 1.0e-9d);
+    times.add(150L * TickTimesTest.MILLISECOND);
+    assertEquals(55.0d, times.getRecentMspt(), 1.0e-9d);
+  }
+
+  @Test
+  void windowSmallerThanTheBuffer() {
+    final var times = new TickTimes(100);
+    for (var ms = 1L; ms <= 100L; ms++) {
+      times.add(ms * TickTimesTest.MILLISECOND);
+    }
+    final var snapshot = times.snapshot(10);
+    assertEquals(10, snapshot.getCount());
+    assertEquals(95.5d, snapshot.getAverage(), 1.0e-9d);
+    assertEquals(95.0d, snapshot.getP50(), 1.0e-9d);
+    assertEquals(100.0d, snapshot.getMax(), 1.0e-9d);
+  }
+}